@@ -0,0 +1,100 @@
+package bench.com.karger;
+
+import src.com.karger.generator.ErdosRenyiGenerator;
+import src.com.karger.io.GraphFile;
+import src.com.karger.karger.CompactGraph;
+import src.com.karger.karger.Contraction;
+import src.com.karger.karger.ContractionStrategy;
+import src.com.karger.karger.TrialWorkspace;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Checks that sampling and permutation trials allocate nothing once warmed
+ * up, on heap graphs and on graphs mapped from a file, weighted or not.
+ * Every case runs warmup trials, then a single trial whose heap allocated
+ * bytes, counted by ThreadMXBean, must be 0. A trial runs on the calling
+ * thread only, so its count covers all of it.
+ *
+ * Runs on its own in a few seconds, without the benchmark grid: it prints
+ * one line per case and exits with status 1 if any trial allocated, or 2 if
+ * the JVM does not count allocations per thread.
+ */
+public class AllocationCheck {
+
+    private static final int VERTICES = 300;
+    private static final double DENSITY = 0.3;
+    private static final int WARMUP_TRIALS = 500;
+    private static final long SEED = 42;
+
+    private static final ContractionStrategy[] STRATEGIES = {
+            ContractionStrategy.EDGE_SAMPLING, ContractionStrategy.RANDOM_PERMUTATION
+    };
+
+    static volatile double sink;
+
+    public static void main(String[] args) throws Exception {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean)
+                || !((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemorySupported()) {
+            System.out.println("This JVM does not count allocated bytes per thread");
+            System.exit(2);
+        }
+        com.sun.management.ThreadMXBean allocation = (com.sun.management.ThreadMXBean) threads;
+        allocation.setThreadAllocatedMemoryEnabled(true);
+
+        Path dir = Files.createTempDirectory("karger-alloc");
+        List<String> failed = new ArrayList<>();
+        for (boolean weighted : new boolean[]{false, true}) {
+            CompactGraph heap = new ErdosRenyiGenerator(VERTICES, DENSITY, weighted).generate(SEED);
+            Path file = dir.resolve(weighted ? "weighted.bin" : "unweighted.bin");
+            GraphFile.write(heap, file);
+            CompactGraph mapped = GraphFile.load(file);
+
+            for (CompactGraph graph : new CompactGraph[]{heap, mapped}) {
+                for (ContractionStrategy strategy : STRATEGIES) {
+                    String name = String.format("%-18s w=%-5b %-6s", strategy, weighted, graph.isOnHeap() ? "heap" : "mapped");
+                    long bytes = allocated(allocation, graph, strategy);
+                    System.out.println(String.format("%s %8d B", name, bytes));
+                    if (bytes != 0) {
+                        failed.add(name.trim().replaceAll(" +", " "));
+                    }
+                }
+            }
+            Files.delete(file);
+        }
+        Files.delete(dir);
+
+        if (!failed.isEmpty()) {
+            System.out.println("Trials that allocated: " + failed);
+            System.exit(1);
+        }
+        System.out.println("No trial allocated");
+    }
+
+    /*
+     * Bytes allocated by one trial on this thread after the warmup, the same
+     * path as the runner: workspace of this thread and one stream per trial
+     */
+    private static long allocated(com.sun.management.ThreadMXBean allocation, CompactGraph graph,
+                                  ContractionStrategy strategy) {
+        TrialWorkspace workspace = TrialWorkspace.local();
+        Contraction contraction = workspace.contraction(graph, strategy);
+        double acc = 0;
+        for (int i = 0; i < WARMUP_TRIALS; i++) {
+            acc += contraction.trial(workspace.stream(SEED, i));
+        }
+        // Two reads in a row measure what reading costs, if anything
+        long empty = allocation.getCurrentThreadAllocatedBytes();
+        long before = allocation.getCurrentThreadAllocatedBytes();
+        acc += contraction.trial(workspace.stream(SEED, WARMUP_TRIALS));
+        long after = allocation.getCurrentThreadAllocatedBytes();
+        sink = acc;
+        return (after - before) - (before - empty);
+    }
+}
@@ -0,0 +1,224 @@
+package bench.com.karger;
+
+import src.com.karger.generator.ErdosRenyiGenerator;
+import src.com.karger.generator.PlantedCutGenerator;
+import src.com.karger.generator.PowerLawGenerator;
+import src.com.karger.io.GraphFile;
+import src.com.karger.io.StreamingGraphReader;
+import src.com.karger.karger.CompactGraph;
+import src.com.karger.karger.Contraction;
+import src.com.karger.karger.ContractionStrategy;
+import src.com.karger.karger.Graph;
+import src.com.karger.karger.TrialWorkspace;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Benchmark suite for the hot paths: one contraction trial per strategy,
+ * weighted against unweighted sampling, the legacy object graph trial
+ * (makeCopy plus minCutKarger), graph generation, loading and saving. Every benchmark runs
+ * over the grid of vertex counts, densities and weightedness given on the
+ * command line, and synthetic graphs come from a fixed seed.
+ *
+ * Sampling and permutation trials must allocate nothing: if one does, the run
+ * lists it at the end and exits with status 1. {@link AllocationCheck} checks
+ * the same on its own, one warmed up trial per case, without the grid.
+ *
+ * Kept apart from the application sources, build it with the classes of src on
+ * the classpath and run bench.com.karger.Benchmarks -h for the options.
+ */
+public class Benchmarks {
+
+    /**
+     * The object graph is too slow to be measured past this size.
+     */
+    private static final int LEGACY_MAX_VERTICES = 200;
+
+    private static int[] vertices = {100, 1000};
+    private static double[] densities = {0.1, 0.7};
+    private static boolean[] weightedness = {false, true};
+    private static long seed = 42;
+    private static List<String> only = new ArrayList<>();
+    private static int warmups = 3, iterations = 5;
+    private static long millis = 500;
+    // Contraction benchmarks that allocated although their strategy promises not to
+    private static final List<String> allocating = new ArrayList<>();
+
+    public static void main(String[] args) throws Exception {
+        parseArguments(args);
+        Harness harness = new Harness(warmups, iterations, millis);
+        Path dir = Files.createTempDirectory("karger-bench");
+
+        for (int n : vertices) {
+            for (boolean weighted : weightedness) {
+                for (double density : densities) {
+                    String params = String.format("n=%d d=%.2f w=%b", n, density, weighted);
+                    CompactGraph graph = new ErdosRenyiGenerator(n, density, weighted).generate(seed);
+
+                    if (enabled("contraction")) {
+                        // Same path as the runner: workspace of this thread and one stream per trial
+                        TrialWorkspace workspace = TrialWorkspace.local();
+                        for (ContractionStrategy strategy : ContractionStrategy.values()) {
+                            Contraction contraction = workspace.contraction(graph, strategy);
+                            long[] trial = {0};
+                            boolean clean = harness.measureNoAllocation("contraction." + strategy, params,
+                                    () -> Harness.consume(contraction.trial(workspace.stream(seed, trial[0]++))));
+                            // Coalesced trials build their neighbour maps every time, they are only flagged
+                            if (!clean && strategy != ContractionStrategy.COALESCED) {
+                                allocating.add("contraction." + strategy + " " + params);
+                            }
+                        }
+                    }
+
+                    if (enabled("generate")) {
+                        harness.measure("generate.erdosRenyi", params,
+                                () -> new ErdosRenyiGenerator(n, density, weighted).generate(seed).getNumEdges());
+                        harness.measure("generate.plantedCut", params,
+                                () -> new PlantedCutGenerator(n, n / 2, density, n / 10, weighted).generate(seed).getNumEdges());
+                        // Power law graphs are sparse, same number of edges up to a quarter of the pairs
+                        double degree = Math.min(density, 0.25) * (n - 1);
+                        harness.measure("generate.powerLaw", params,
+                                () -> new PowerLawGenerator(n, degree, 2.5, weighted).generate(seed).getNumEdges());
+                    }
+
+                    if (enabled("load")) {
+                        Path text = dir.resolve("graph.edges");
+                        Path binary = dir.resolve("graph.bin");
+                        writeEdgeList(graph, text);
+                        GraphFile.write(graph, binary);
+                        StreamingGraphReader reader = new StreamingGraphReader(StreamingGraphReader.Format.EDGE_LIST);
+                        harness.measure("load.edgeList", params, () -> reader.read(text).getNumEdges());
+                        harness.measure("load.binary", params, () -> GraphFile.map(binary).toCompact().getNumEdges());
+                        harness.measure("save.binary", params, () -> {
+                            GraphFile.write(graph, binary);
+                            return null;
+                        });
+                    }
+                }
+
+                // The object graph only builds 75% dense graphs
+                if (n <= LEGACY_MAX_VERTICES) {
+                    legacy(harness, dir, n, weighted);
+                }
+            }
+        }
+
+        if (!allocating.isEmpty()) {
+            System.out.println("Allocation free contractions allocated: " + allocating);
+            System.exit(1);
+        }
+    }
+
+    private static void legacy(Harness harness, Path dir, int n, boolean weighted) throws Exception {
+        String params = String.format("n=%d d=0.75 w=%b", n, weighted);
+        Graph graph = new Graph(n, false, weighted, seed);
+        graph.fill();
+        String file = dir.resolve("graph.txt").toString();
+        graph.saveGraph(file);
+
+        if (enabled("legacy")) {
+            harness.measure("legacy.fill", params, () -> {
+                Graph test = new Graph(n, false, weighted, seed);
+                test.fill();
+                return test;
+            });
+            harness.measure("legacy.makeCopy", params, () -> {
+                Graph test = new Graph(n, false, weighted, seed);
+                graph.makeCopy(file, test);
+                return test;
+            });
+            harness.measure("legacy.makeCopy+minCutKarger", params, () -> {
+                Graph test = new Graph(n, false, weighted, seed);
+                graph.makeCopy(file, test);
+                return test.minCutKarger();
+            });
+            harness.measure("legacy.saveGraph", params, () -> {
+                graph.saveGraph(file);
+                return null;
+            });
+        }
+        if (enabled("load")) {
+            Path text = dir.resolve("graph.txt");
+            StreamingGraphReader reader = new StreamingGraphReader(StreamingGraphReader.Format.ADJACENCY);
+            harness.measure("load.adjacency", params, () -> reader.read(text).getNumEdges());
+        }
+    }
+
+    private static void writeEdgeList(CompactGraph graph, Path path) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (int e = 0; e < graph.getNumEdges(); e++) {
+            sb.append(graph.getSrc(e)).append(' ').append(graph.getDst(e));
+            if (graph.isWeighted()) {
+                sb.append(' ').append(graph.getWeight(e));
+            }
+            sb.append('\n');
+        }
+        Files.writeString(path, sb);
+    }
+
+    private static boolean enabled(String group) {
+        return only.isEmpty() || only.contains(group);
+    }
+
+    private static void parseArguments(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-vertices":
+                    vertices = Arrays.stream(args[++i].split(",")).mapToInt(Integer::parseInt).toArray();
+                    break;
+                case "-density":
+                    densities = Arrays.stream(args[++i].split(",")).mapToDouble(Double::parseDouble).toArray();
+                    break;
+                case "-weighted": {
+                    String[] values = args[++i].split(",");
+                    weightedness = new boolean[values.length];
+                    for (int j = 0; j < values.length; j++) {
+                        weightedness[j] = Boolean.parseBoolean(values[j]);
+                    }
+                    break;
+                }
+                case "-seed":
+                    seed = Long.parseLong(args[++i]);
+                    break;
+                case "-only":
+                    only = Arrays.asList(args[++i].split(","));
+                    break;
+                case "-warmup":
+                    warmups = Integer.parseInt(args[++i]);
+                    break;
+                case "-iterations":
+                    iterations = Integer.parseInt(args[++i]);
+                    break;
+                case "-time":
+                    millis = Long.parseLong(args[++i]);
+                    break;
+                case "-h":
+                    printUsage();
+                    System.exit(0);
+                    break;
+                default:
+                    System.out.println("Argument not supported. Argument -h to print usage of the benchmarks");
+                    break;
+            }
+        }
+    }
+
+    private static void printUsage() {
+        System.out.println("./Benchmarks [-vertices] [-density] [-weighted] [-seed] [-only] [-warmup] [-iterations] [-time] [-h]");
+        System.out.println("Available options:");
+        System.out.println("    -vertices <INTEGER,...>: vertex counts, default 100,1000");
+        System.out.println("    -density <DOUBLE,...>: edge probabilities of the synthetic graphs, default 0.1,0.7");
+        System.out.println("    -weighted <BOOLEAN,...>: weightedness, default false,true");
+        System.out.println("    -seed <LONG>: seed of the synthetic graphs and trials, default 42");
+        System.out.println("    -only <STRING,...>: groups to run among contraction, generate, load, legacy");
+        System.out.println("    -warmup <INTEGER>: warmup iterations, default 3");
+        System.out.println("    -iterations <INTEGER>: measured iterations, default 5");
+        System.out.println("    -time <INTEGER>: milliseconds per iteration, default 500");
+        System.out.println("    -h: this helpful message");
+    }
+}
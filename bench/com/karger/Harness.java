@@ -0,0 +1,143 @@
+package bench.com.karger;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Locale;
+
+/**
+ * Minimal JMH style measurement loop: timed warmup iterations to let the JIT
+ * settle, then timed measurement iterations, reporting the mean time per
+ * operation and its deviation across iterations. Results of every operation
+ * are folded into a volatile sink so the JIT can not drop the work.
+ *
+ * Heap allocated by the measuring thread is reported per operation too, when
+ * the JVM counts it, so paths meant to be allocation free show 0 B/op, and
+ * {@link #measureNoAllocation} flags those that do not.
+ * Allocations of other threads, like fork-join workers, are not counted.
+ */
+class Harness {
+
+    interface Operation {
+        Object run() throws Exception;
+    }
+
+    private final int warmups;
+    private final int iterations;
+    private final long iterationNanos;
+
+    private final com.sun.management.ThreadMXBean allocation;
+    private long ops;
+
+    static volatile int sink;
+
+    /**
+     * @param warmups warmup iterations, not reported
+     * @param iterations measured iterations
+     * @param iterationMillis minimum duration of every iteration
+     */
+    Harness(int warmups, int iterations, long iterationMillis) {
+        this.warmups = warmups;
+        this.iterations = iterations;
+        this.iterationNanos = iterationMillis * 1_000_000L;
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemorySupported()) {
+            this.allocation = (com.sun.management.ThreadMXBean) threads;
+            this.allocation.setThreadAllocatedMemoryEnabled(true);
+        } else {
+            this.allocation = null;
+        }
+    }
+
+    /**
+     * Measures an operation and prints one line with its results.
+     * @param name benchmark name
+     * @param params parameters of this run, printed as given
+     * @param op operation to measure
+     * @return heap allocated per operation, NaN if the JVM does not count it
+     * @throws Exception anything the operation throws
+     */
+    double measure(String name, String params, Operation op) throws Exception {
+        for (int i = 0; i < warmups; i++) {
+            iteration(op);
+        }
+        double[] nanosPerOp = new double[iterations];
+        long totalOps = 0;
+        long bytes = allocatedBytes();
+        for (int i = 0; i < iterations; i++) {
+            nanosPerOp[i] = iteration(op);
+            totalOps += ops;
+        }
+        bytes = allocatedBytes() - bytes;
+
+        double mean = 0;
+        for (double v : nanosPerOp) {
+            mean += v;
+        }
+        mean /= iterations;
+        double variance = 0;
+        for (double v : nanosPerOp) {
+            variance += (v - mean) * (v - mean);
+        }
+        double deviation = (iterations > 1) ? Math.sqrt(variance / (iterations - 1)) : 0;
+
+        double bytesPerOp = (allocation == null) ? Double.NaN : (double) bytes / Math.max(totalOps, 1);
+        String alloc = (allocation == null) ? "" : String.format(Locale.ROOT, " %12.1f B/op", bytesPerOp);
+        System.out.println(String.format(Locale.ROOT, "%-30s %-24s %14.3f +- %10.3f us/op",
+                name, params, mean / 1000, deviation / 1000) + alloc);
+        return bytesPerOp;
+    }
+
+    /**
+     * Measures an operation like {@link #measure} and flags it on its own line
+     * if it allocated on the measuring thread, 1 B/op or more.
+     * @param name benchmark name
+     * @param params parameters of this run, printed as given
+     * @param op operation meant to allocate nothing once warmed up
+     * @return false if it allocated, true if it did not or the JVM does not count it
+     * @throws Exception anything the operation throws
+     */
+    boolean measureNoAllocation(String name, String params, Operation op) throws Exception {
+        double bytesPerOp = measure(name, params, op);
+        // Any object is at least 16 bytes, less per operation is one-off JVM work spread over the run
+        if (bytesPerOp >= 1) {
+            System.out.println(String.format(Locale.ROOT, "  ALLOCATES %s %s: %.1f B/op", name, params, bytesPerOp));
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Folds a primitive result into the sink, for operations that would
+     * allocate if they returned it boxed.
+     * @param value result of the operation
+     * @return null, to be returned by the operation
+     */
+    static Object consume(double value) {
+        sink += Long.hashCode(Double.doubleToRawLongBits(value));
+        return null;
+    }
+
+    private long allocatedBytes() {
+        return (allocation == null) ? 0 : allocation.getCurrentThreadAllocatedBytes();
+    }
+
+    /*
+     * Runs the operation for one iteration and returns the time per operation,
+     * leaving the number of operations in ops
+     */
+    private double iteration(Operation op) throws Exception {
+        ops = 0;
+        int acc = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            Object result = op.run();
+            acc += (result == null) ? 0 : result.hashCode();
+            ops++;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < iterationNanos);
+        sink += acc;
+        return (double) elapsed / ops;
+    }
+}
@@ -1,40 +1,399 @@
 package src.com.karger;
 
-import src.com.karger.karger.Graph;
+import src.com.karger.batch.BatchRunner;
+import src.com.karger.generator.ErdosRenyiGenerator;
+import src.com.karger.generator.GraphGenerator;
+import src.com.karger.generator.PlantedCutGenerator;
+import src.com.karger.generator.PowerLawGenerator;
+import src.com.karger.io.Checkpoint;
+import src.com.karger.io.GraphFile;
+import src.com.karger.io.StreamingGraphReader;
+import src.com.karger.karger.CompactGraph;
+import src.com.karger.karger.ContractionStrategy;
+import src.com.karger.karger.CutResult;
+import src.com.karger.karger.KargerRunner;
+import src.com.karger.karger.KargerStein;
+import src.com.karger.karger.Kernel;
+import src.com.karger.karger.MinCutSolver;
+import src.com.karger.karger.MinCutSolvers;
+import src.com.karger.karger.SparseCertificate;
+import src.com.karger.karger.TrialScheduler;
+import src.com.karger.karger.TrivialCuts;
+import src.com.karger.metrics.JfrMetricsSink;
+import src.com.karger.metrics.JmxMetricsSink;
+import src.com.karger.metrics.Metrics;
+import src.com.karger.offheap.OffHeapContraction;
+import src.com.karger.offheap.OffHeapGraph;
+import src.com.karger.utils.RandomGenerator;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.management.JMException;
 
 
 public class Main{
 
-    private static boolean debug = false, weighted = false;
-    private static int products = 5, tests = 10;
-    private static String file = "graph";
+    private static boolean debug = false, weighted = false, stein = false, permutation = false, coalesce = false,
+                          adaptive = false, exact = false, auto = false, metrics = false, certificate = false,
+                          kernel = false, offheap = false;
+    private static int products = 5, tests = 10, threads = 0;
+    private static long seed = RandomGenerator.newSeed();
+    private static double confidence = 0, timeout = 0, density = 0.75, interval = 5;
+    private static String file = "graph", load = null, generator = "er", batch = null, out = "results.tsv",
+                          checkpoint = null;
+    private static JmxMetricsSink jmx;
+
+    /**
+     * Trials run on the original graph to find the cut the certificate is built for.
+     */
+    private static final int PROBE_TRIALS = 4;
 
 	public static void main(String[] args){
 
 	    parseArguments(args);
+        if (metrics) enableMetrics();
+
+        if (batch != null) {
+            runBatch();
+            return;
+        }
+
+        // A saved run replays its seed, so a random graph is generated again the same
+        Checkpoint saved = null;
+        if (checkpoint != null && Files.exists(Paths.get(checkpoint))) {
+            try {
+                saved = Checkpoint.read(Paths.get(checkpoint));
+            } catch (IOException e) {
+                System.err.println("Unable to read checkpoint " + checkpoint + ": " + e.getMessage());
+                return;
+            }
+            seed = saved.getSeed();
+            System.out.println("Resuming from " + saved);
+        }
+
+        // A binary file with nothing to do on the heap is copied from the mapping straight off heap
+        if (offheap && load != null && !load.endsWith(".txt") && !load.endsWith(".edges")
+                && !kernel && !certificate && !exact && !auto) {
+            runMappedOffHeap();
+            return;
+        }
+
+        CompactGraph compact;
+        if (load != null) {
+            compact = loadGraph(load);
+            if (compact == null) {
+                return;
+            }
+            System.out.println("Running " + tests + " tests in a " + compact.getNumVertices() + " vertices graph from " + load + ".");
+        } else {
+            compact = generateGraph();
+            if (compact == null) {
+                return;
+            }
+            System.out.println("Running " + tests + " tests in a " + products + " vertices " + generator
+                    + " graph with " + compact.getNumEdges() + " edges.");
+        }
+
+        // Disconnected graphs and graphs of two vertices need no trials
+        CutResult trivial = TrivialCuts.of(compact);
+        if (trivial != null) {
+            System.out.println("Trivial cut, no trials needed");
+            System.out.println(trivial);
+            System.out.println("Seed: " + seed);
+            if (metrics) System.out.println(jmx);
+            return;
+        }
+        if (debug) System.out.println("[debug] Lightest degree cut: " + TrivialCuts.lightestDegree(compact).getWeight());
+
+        Kernel reduced = null;
+        if (kernel) {
+            double start = System.currentTimeMillis();
+            reduced = Kernel.of(compact);
+            double end = System.currentTimeMillis();
+            if (debug) System.out.println("[debug] Kernel built in " + (end - start) / 1000 + " seconds");
+            System.out.println(reduced);
+            compact = reduced.getGraph();
+        }
+
+        SparseCertificate sparse = null;
+        if (certificate) {
+            sparse = sparsify(compact);
+            System.out.println(sparse);
+            compact = sparse.getGraph();
+        }
 
-        System.out.println("Running " + tests + " tests in a " + products + " vertices 70% connected graph.");
-	    Graph graph = new Graph(products, debug, weighted);
-        graph.fill();
-    	graph.saveGraph(file);
+        if (exact || auto) {
+            MinCutSolver solver = exact ? MinCutSolvers.stoerWagner(compact) : MinCutSolvers.choose(compact, seed);
+            if (debug) System.out.println("[debug] Solving with " + solver.getClass().getSimpleName());
+            double start = System.currentTimeMillis();
+            CutResult result = solver.minCut();
+            if (sparse != null) result = sparse.lift(result);
+            if (reduced != null) result = reduced.lift(result);
+            double end = System.currentTimeMillis();
+            System.out.println(result);
+            System.out.println("Seed: " + seed);
+            System.out.println("El tiempo es: " + (end - start) / 1000);
+            if (metrics) System.out.println(jmx);
+            return;
+        }
 
-        for (int i = 0; i < tests; i++) {
-            System.out.print((i + 1) + ": ");
-            Graph test = new Graph(products, debug, weighted);
-            graph.makeCopy(file, test);
+        if (offheap) {
             double start = System.currentTimeMillis();
-        	test.minCutKarger();
-        	double end = System.currentTimeMillis();
-        	double timeSeconds =(end-start)/1000;
-        	System.out.println("El tiempo es: "+timeSeconds);
-            test.printGraph();
-            //System.out.println(test.minCutKarger());
+            OffHeapGraph graph;
+            try {
+                graph = OffHeapGraph.of(compact);
+            } catch (UncheckedIOException e) {
+                System.err.println("Unable to copy graph off heap: " + e.getMessage());
+                return;
+            }
+            if (debug) System.out.println("[debug] " + graph.getBytes() + " bytes of edges off heap");
+            CutResult result = new OffHeapContraction(graph).run(seed, 0, tests);
+            if (sparse != null) result = sparse.lift(result);
+            if (reduced != null) result = reduced.lift(result);
+            double end = System.currentTimeMillis();
+            System.out.println(result);
+            System.out.println("Seed: " + seed);
+            System.out.println("El tiempo es: " + (end - start) / 1000);
+            if (metrics) System.out.println(jmx);
+            return;
         }
+
+        if (stein) {
+            double start = System.currentTimeMillis();
+            CutResult result = new KargerStein(compact).setSeed(seed).run(tests);
+            if (sparse != null) result = sparse.lift(result);
+            if (reduced != null) result = reduced.lift(result);
+            double end = System.currentTimeMillis();
+            System.out.println(result);
+            System.out.println("Seed: " + seed);
+            System.out.println("El tiempo es: " + (end - start) / 1000);
+            if (metrics) System.out.println(jmx);
+            return;
+        }
+
+        // Export once, every test runs against the same compact graph
+        KargerRunner runner = (threads > 0) ? new KargerRunner(compact, threads)
+                                            : new KargerRunner(compact);
+        runner.setSeed(seed);
+        if (permutation) runner.setStrategy(ContractionStrategy.RANDOM_PERMUTATION);
+        if (coalesce) runner.setStrategy(ContractionStrategy.COALESCED);
+        if (debug) System.out.println("[debug] Running " + runner.getStrategy() + " trials with parallelism " + runner.getParallelism());
+
+        double start = System.currentTimeMillis();
+        CutResult result;
+        // A runner with -threads owns its pool, closing it stops the workers
+        try (runner) {
+            if (adaptive || checkpoint != null) {
+                TrialScheduler scheduler = new TrialScheduler(runner).setMaxTrials(tests);
+                if (adaptive) {
+                    // Tests only cap the number of trials, the schedule stops as soon as it is confident
+                    scheduler.setTimeout((long) (timeout * 1000));
+                    if (confidence > 0) scheduler.setTarget(confidence);
+                } else {
+                    // Exactly -tests trials, run in batches only to checkpoint between them
+                    scheduler.setRediscovery(false).setKargerBound(false);
+                }
+                if (checkpoint != null && !checkpointed(scheduler, saved)) {
+                    return;
+                }
+                result = scheduler.run();
+                System.out.println("Stopped by " + scheduler.getStop() + " after " + result.getTrials() + " trials");
+            } else {
+                result = runner.run(tests);
+            }
+        }
+        if (sparse != null) result = sparse.lift(result);
+        if (reduced != null) result = reduced.lift(result);
+        double end = System.currentTimeMillis();
+        double timeSeconds =(end-start)/1000;
+        System.out.println(result);
+        System.out.println("Seed: " + seed);
+        System.out.println("El tiempo es: "+timeSeconds);
+        if (metrics) System.out.println(jmx);
         //System.out.println();
     }
+
+    /*
+     * Checkpoints every -interval seconds and once more when the JVM is asked to stop,
+     * resuming the saved run if there is one
+     */
+    private static boolean checkpointed(TrialScheduler scheduler, Checkpoint saved) {
+        if (saved != null) {
+            try {
+                scheduler.resume(saved);
+            } catch (IllegalArgumentException e) {
+                System.err.println("Unable to resume from " + checkpoint + ": " + e.getMessage());
+                return false;
+            }
+        }
+        AtomicBoolean stopping = new AtomicBoolean();
+        Thread main = Thread.currentThread();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            // Running trials give up and the schedule writes its last checkpoint before exiting
+            stopping.set(true);
+            try {
+                main.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        scheduler.setCancellation(stopping::get).setCheckpoint(Paths.get(checkpoint), (long) (interval * 1000));
+        if (debug) System.out.println("[debug] Checkpointing to " + checkpoint + " every " + interval + " seconds");
+        return true;
+    }
+
+    /*
+     * Every graph of a directory or manifest in this JVM, on one pool of -threads workers
+     */
+    private static void runBatch() {
+        ForkJoinPool pool = (threads > 0) ? new ForkJoinPool(threads) : ForkJoinPool.commonPool();
+        BatchRunner runner = new BatchRunner(pool).setSeed(seed);
+        try {
+            List<Path> inputs = BatchRunner.inputs(Paths.get(batch));
+            System.out.println("Running a batch of " + inputs.size() + " graphs from " + batch + " into " + out + ".");
+            double start = System.currentTimeMillis();
+            runner.run(inputs, Paths.get(out));
+            double end = System.currentTimeMillis();
+            System.out.println("Solved " + runner.getSolved() + ", failed " + runner.getFailed());
+            System.out.println("Seed: " + seed);
+            System.out.println("El tiempo es: " + (end - start) / 1000);
+            if (metrics) System.out.println(jmx);
+        } catch (IOException e) {
+            System.err.println("Unable to run batch " + batch + ": " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (pool != ForkJoinPool.commonPool()) pool.shutdown();
+        }
+    }
+
+    /*
+     * Certificate for the lightest cut of a few quick trials, on a stream of the seed the tests do not use
+     */
+    private static SparseCertificate sparsify(CompactGraph graph) {
+        double start = System.currentTimeMillis();
+        CutResult probe = new KargerRunner(graph).setSeed(RandomGenerator.streamSeed(seed, -1)).run(PROBE_TRIALS);
+        SparseCertificate sparse = SparseCertificate.of(graph, probe);
+        double end = System.currentTimeMillis();
+        if (debug) System.out.println("[debug] Sparse certificate built in " + (end - start) / 1000 + " seconds");
+        return sparse;
+    }
+
+    /*
+     * Totals go to an MBean and to Flight Recorder events, the MBean is printed at the end
+     */
+    private static void enableMetrics() {
+        jmx = new JmxMetricsSink();
+        try {
+            jmx.register();
+        } catch (JMException e) {
+            System.err.println("Unable to register metrics MBean: " + e.getMessage());
+        }
+        Metrics.enable(jmx, new JfrMetricsSink());
+    }
+
+    /*
+     * Random graph of the chosen family, saved as text in the graph file
+     */
+    private static CompactGraph generateGraph() {
+        GraphGenerator gen;
+        try {
+            switch (generator) {
+                case "planted":
+                    // Two dense halves joined by fewer edges than any vertex has, the cut to find
+                    gen = new PlantedCutGenerator(products, Math.max(1, products / 2), density,
+                            Math.max(1, products / 10), weighted);
+                    break;
+                case "powerlaw":
+                    gen = new PowerLawGenerator(products, density * (products - 1), 2.5, weighted);
+                    break;
+                case "er":
+                    gen = new ErdosRenyiGenerator(products, density, weighted);
+                    break;
+                default:
+                    System.err.println("Unknown generator " + generator + ", use er, planted or powerlaw");
+                    return null;
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            return null;
+        }
+
+        double start = System.currentTimeMillis();
+        CompactGraph compact = gen.generate(seed);
+        double end = System.currentTimeMillis();
+        if (debug) System.out.println("[debug] Graph generated in " + (end - start) / 1000 + " seconds");
+        try {
+            GraphFile.writeText(compact, Paths.get(file));
+        } catch (IOException e) {
+            System.err.println("Unable to save graph " + file + ": " + e.getMessage());
+        }
+        return compact;
+    }
+
+    /*
+     * Solves a binary graph file with the off-heap engine, the graph never
+     * being held on the heap, so it may have 2^31 edges or more
+     */
+    private static void runMappedOffHeap() {
+        OffHeapGraph graph;
+        try {
+            double start = System.currentTimeMillis();
+            graph = OffHeapGraph.of(GraphFile.map(Paths.get(load)));
+            double end = System.currentTimeMillis();
+            if (debug) System.out.println("[debug] Graph loaded in " + (end - start) / 1000 + " seconds");
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println("Unable to load graph " + load + ": " + e.getMessage());
+            return;
+        } catch (OutOfMemoryError e) {
+            System.err.println("Not enough memory to copy graph " + load + " off heap: " + e.getMessage());
+            return;
+        }
+        System.out.println("Running " + tests + " tests in a " + graph.getNumVertices() + " vertices graph from " + load + ".");
+        if (debug) System.out.println("[debug] " + graph.getBytes() + " bytes of edges off heap");
+        double start = System.currentTimeMillis();
+        CutResult result = new OffHeapContraction(graph).run(seed, 0, tests);
+        double end = System.currentTimeMillis();
+        System.out.println(result);
+        System.out.println("Seed: " + seed);
+        System.out.println("El tiempo es: " + (end - start) / 1000);
+        if (metrics) System.out.println(jmx);
+    }
+
+    /*
+     * Text graphs saved by Graph.saveGraph end in .txt, edge lists in .edges,
+     * anything else is a binary graph file
+     */
+    private static CompactGraph loadGraph(String path) {
+        try {
+            double start = System.currentTimeMillis();
+            CompactGraph compact;
+            if (path.endsWith(".txt") || path.endsWith(".edges")) {
+                StreamingGraphReader reader = new StreamingGraphReader(path.endsWith(".txt")
+                        ? StreamingGraphReader.Format.ADJACENCY : StreamingGraphReader.Format.EDGE_LIST);
+                if (debug) {
+                    reader.setListener((read, total, edges, rate) -> System.out.printf(
+                            "[debug] Loaded %d/%d bytes, %d edges, %.1f MB/s%n", read, total, edges, rate / 1e6));
+                }
+                compact = reader.read(Paths.get(path));
+            } else {
+                compact = GraphFile.map(Paths.get(path)).toCompact();
+            }
+            double end = System.currentTimeMillis();
+            if (debug) System.out.println("[debug] Graph loaded in " + (end - start) / 1000 + " seconds");
+            return compact;
+        } catch (IOException | IllegalStateException e) {
+            System.err.println("Unable to load graph " + path + ": " + e.getMessage());
+            return null;
+        }
+    }
 	
     private static void parseArguments(String[] args) {
         for (int i = 0; i < args.length; i++) {
@@ -45,6 +404,76 @@ public class Main{
                 case "-w":
                     weighted = true;
                     break;
+                case "-ks":
+                    stein = true;
+                    break;
+                case "-perm":
+                    permutation = true;
+                    break;
+                case "-coalesce":
+                    coalesce = true;
+                    break;
+                case "-exact":
+                    exact = true;
+                    break;
+                case "-auto":
+                    auto = true;
+                    break;
+                case "-adaptive":
+                    adaptive = true;
+                    break;
+                case "-kernel":
+                    kernel = true;
+                    break;
+                case "-certificate":
+                    certificate = true;
+                    break;
+                case "-offheap":
+                    offheap = true;
+                    break;
+                case "-metrics":
+                    metrics = true;
+                    break;
+                case "-confidence":
+                    ++i;
+                    try {
+                        confidence = Double.parseDouble(args[i]);
+                    } catch (NumberFormatException | NullPointerException e) {
+                        System.err.println(e.getMessage());
+                    }
+                    break;
+                case "-timeout":
+                    ++i;
+                    try {
+                        timeout = Double.parseDouble(args[i]);
+                    } catch (NumberFormatException | NullPointerException e) {
+                        System.err.println(e.getMessage());
+                    }
+                    break;
+                case "-checkpoint":
+                    ++i;
+                    checkpoint = args[i];
+                    break;
+                case "-interval":
+                    ++i;
+                    try {
+                        interval = Double.parseDouble(args[i]);
+                    } catch (NumberFormatException | NullPointerException e) {
+                        System.err.println(e.getMessage());
+                    }
+                    break;
+                case "-generator":
+                    ++i;
+                    generator = args[i];
+                    break;
+                case "-density":
+                    ++i;
+                    try {
+                        density = Double.parseDouble(args[i]);
+                    } catch (NumberFormatException | NullPointerException e) {
+                        System.err.println(e.getMessage());
+                    }
+                    break;
                 case "-num":
                     ++i;
                     try {
@@ -61,6 +490,22 @@ public class Main{
                         System.err.println(e.getMessage());
                     }
                     break;
+                case "-threads":
+                    ++i;
+                    try {
+                        threads = Integer.parseInt(args[i]);
+                    } catch (NumberFormatException | NullPointerException e) {
+                        System.err.println(e.getMessage());
+                    }
+                    break;
+                case "-seed":
+                    ++i;
+                    try {
+                        seed = Long.parseLong(args[i]);
+                    } catch (NumberFormatException | NullPointerException e) {
+                        System.err.println(e.getMessage());
+                    }
+                    break;
                 case "-f":
                     ++i;
                     file = args[i] + ".txt";
@@ -81,6 +526,18 @@ public class Main{
                         }
                     }
                     break;
+                case "-batch":
+                    ++i;
+                    batch = args[i];
+                    break;
+                case "-out":
+                    ++i;
+                    out = args[i];
+                    break;
+                case "-load":
+                    ++i;
+                    load = args[i];
+                    break;
                 case "-h":
                     printUsage();
                     break;
@@ -93,13 +550,34 @@ public class Main{
     }
 
     private static void printUsage() {
-        System.out.println("./Main [-d] [-w] [-num] [-tests] [-f] [-h] ");
+        System.out.println("./Main [-d] [-w] [-ks] [-exact] [-auto] [-perm] [-coalesce] [-adaptive] [-kernel] [-certificate] [-offheap] [-metrics] [-confidence] [-timeout] [-checkpoint] [-interval] [-generator] [-density] [-num] [-tests] [-threads] [-seed] [-f] [-load] [-batch] [-out] [-h] ");
         System.out.println("Available options:");
         System.out.println("    -d: debug messages will be printed while executing");
         System.out.println("    -w: graph will be weighted");
+        System.out.println("    -ks: use Karger-Stein recursive contraction, tests are recursive runs");
+        System.out.println("    -exact: use the deterministic Stoer-Wagner algorithm");
+        System.out.println("    -auto: pick Stoer-Wagner, Karger-Stein or Karger from the size and density of the graph");
+        System.out.println("    -perm: contract edges in a random permutation order instead of sampling each step");
+        System.out.println("    -coalesce: merge parallel edges into weighted super edges while contracting");
+        System.out.println("    -adaptive: stop before -tests trials once the cut is found with enough confidence");
+        System.out.println("    -kernel: contract edges no minimum cut needs to cross before solving");
+        System.out.println("    -certificate: run on a sparse certificate keeping every cut up to the lightest of a few quick trials");
+        System.out.println("    -offheap: run the trials on a copy of the graph held outside the heap, one after the other, a binary -load file never passes through the heap, the copy maps a file in java.io.tmpdir instead of direct memory");
+        System.out.println("    -metrics: print trial rates and latencies at the end, also published over JMX and as JFR events");
+        System.out.println("    -confidence <DOUBLE>: target success probability of -adaptive, 1 - 1/n by default");
+        System.out.println("    -timeout <DOUBLE>: seconds -adaptive may run for");
+        System.out.println("    -checkpoint <STRING>: save the trials to this file as they run, and resume from it if it exists");
+        System.out.println("    -interval <DOUBLE>: seconds between two -checkpoint saves, 5 by default");
+        System.out.println("    -generator <STRING>: random graph family, er (default), planted cut or powerlaw");
+        System.out.println("    -density <DOUBLE>: fraction of the pairs joined by an edge, 0.75 by default, at most 0.25 for powerlaw");
         System.out.println("    -num <INTEGER>: number of vertices for the graph");
         System.out.println("    -tests <INTEGER>: number of tests");
+        System.out.println("    -threads <INTEGER>: number of worker threads, all cores by default");
+        System.out.println("    -seed <LONG>: seed of the random graph and of every trial, to replay a run");
         System.out.println("    -f <STRING>: file name to sabe graph");
+        System.out.println("    -load <STRING>: solve a saved graph instead of a random one, binary, .txt or .edges");
+        System.out.println("    -batch <STRING>: solve every graph of a directory or of a manifest listing one file per line");
+        System.out.println("    -out <STRING>: file the -batch results are written to, results.tsv by default");
         System.out.println("    -h: this helpful message");
     }
 }
\ No newline at end of file
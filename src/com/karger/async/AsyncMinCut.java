@@ -0,0 +1,115 @@
+package src.com.karger.async;
+
+import src.com.karger.karger.CutResult;
+import src.com.karger.karger.KargerRunner;
+import src.com.karger.karger.TrialScheduler;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Non blocking facade over a {@link TrialScheduler}, for callers such as
+ * request handlers that can not give up their thread for a whole run.
+ *
+ * {@link #solve()} returns at once with a future of the best cut. The
+ * schedule itself waits on a virtual thread (a daemon platform thread before
+ * Java 21) while the trials run on the fork-join pool of the
+ * {@link KargerRunner}, whose size bounds the CPU taken. Every batch that
+ * finds a lighter cut is published to the subscribers of {@link #progress()}.
+ *
+ * Completing the future in any way stops the schedule: cancelling it, or
+ * a timeout such as {@link CompletableFuture#orTimeout}, makes running trials
+ * give up between contraction steps, so the pool is free again within a few
+ * thousand steps. A deadline can also be set on the scheduler itself, in
+ * which case the future completes normally with the best cut found in time.
+ */
+public class AsyncMinCut {
+
+    private final TrialScheduler scheduler;
+    private final SubmissionPublisher<CutResult> progress;
+    private CompletableFuture<CutResult> result;
+    // Set by the scheduling thread once the schedule returned
+    private volatile TrialScheduler.Stop stop;
+
+    /**
+     * @param scheduler schedule to run, with its stop conditions already set;
+     *                  its cancellation check and listener are replaced
+     */
+    public AsyncMinCut(TrialScheduler scheduler) {
+        this.scheduler = scheduler;
+        this.progress = new SubmissionPublisher<>(VirtualThreads.executor(), Flow.defaultBufferSize());
+    }
+
+    /**
+     * Schedule with the default stop conditions of {@link TrialScheduler}.
+     * @param runner runner doing the trials on its pool
+     */
+    public AsyncMinCut(KargerRunner runner) {
+        this(new TrialScheduler(runner));
+    }
+
+    /**
+     * Best cuts so far, lighter each time. Only cuts found after subscribing
+     * are seen. The publisher completes when the run does and fails with its
+     * error. A subscriber that falls a whole buffer behind misses
+     * intermediate cuts rather than slowing the trials down.
+     * @return publisher of the best cut after every improving batch
+     */
+    public Flow.Publisher<CutResult> progress() {
+        return progress;
+    }
+
+    /**
+     * Starts the schedule, or returns the future of the one already started.
+     * @return future of the best cut, cancel it to stop the trials
+     */
+    public synchronized CompletableFuture<CutResult> solve() {
+        if (result != null) {
+            return result;
+        }
+        CompletableFuture<CutResult> future = new CompletableFuture<>();
+        scheduler.setCancellation(future::isDone);
+        scheduler.setProgress(best -> progress.offer(best, (subscriber, dropped) -> false));
+        result = future;
+        VirtualThreads.executor().execute(() -> {
+            try {
+                CutResult best = scheduler.run();
+                stop = scheduler.getStop();
+                future.complete(best);
+                progress.close();
+            } catch (RuntimeException | Error e) {
+                future.completeExceptionally(e);
+                progress.closeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Starts the schedule with a deadline on the future: past it the future
+     * fails with a TimeoutException and the trials stop.
+     * @param timeout time the caller is willing to wait
+     * @param unit unit of the timeout
+     * @return future of the best cut, cancel it to stop the trials
+     */
+    public CompletableFuture<CutResult> solve(long timeout, TimeUnit unit) {
+        return solve().orTimeout(timeout, unit);
+    }
+
+    /**
+     * @return why the schedule stopped, null while it runs, including the
+     *         few steps it takes to notice a cancellation
+     */
+    public TrialScheduler.Stop getStop() {
+        return stop;
+    }
+
+    /**
+     * @return whether the schedule runs on a virtual thread
+     */
+    public static boolean usesVirtualThreads() {
+        return VirtualThreads.available();
+    }
+}
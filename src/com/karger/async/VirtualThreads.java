@@ -0,0 +1,64 @@
+package src.com.karger.async;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executor starting a virtual thread per task where the JVM has them, looked
+ * up by reflection so the code still builds and runs on Java 17, and cached
+ * daemon platform threads otherwise. Tasks given to it mostly wait, the CPU
+ * bound work goes to a bounded pool.
+ */
+final class VirtualThreads {
+
+    private static final ExecutorService EXECUTOR = create();
+
+    private VirtualThreads() {
+    }
+
+    static ExecutorService executor() {
+        return EXECUTOR;
+    }
+
+    /**
+     * @return whether the executor starts virtual threads
+     */
+    static boolean available() {
+        return !(EXECUTOR instanceof FallbackExecutor);
+    }
+
+    private static ExecutorService create() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // Before Java 21, or a preview the JVM was not started with
+            return new FallbackExecutor();
+        }
+    }
+
+    /*
+     * Cached pool of daemon threads, so pending orchestration never keeps the JVM alive
+     */
+    private static final class FallbackExecutor extends ThreadPoolExecutor {
+
+        FallbackExecutor() {
+            super(0, Integer.MAX_VALUE, 60L, TimeUnit.SECONDS, new SynchronousQueue<>(), daemonThreads());
+        }
+
+        private static ThreadFactory daemonThreads() {
+            AtomicInteger count = new AtomicInteger();
+            return task -> {
+                Thread thread = new Thread(task, "karger-async-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            };
+        }
+    }
+}
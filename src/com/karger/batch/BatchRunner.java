@@ -0,0 +1,224 @@
+package src.com.karger.batch;
+
+import src.com.karger.io.GraphFile;
+import src.com.karger.karger.CompactGraph;
+import src.com.karger.karger.CutResult;
+import src.com.karger.karger.Kernel;
+import src.com.karger.karger.MinCutSolver;
+import src.com.karger.karger.MinCutSolvers;
+import src.com.karger.utils.RandomGenerator;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Solves many graph files in one JVM, so warm-up is paid once per batch
+ * instead of once per graph. Every graph is loaded, reduced to its
+ * {@link Kernel} and solved by the solver {@link MinCutSolvers#choose} picks,
+ * all on one shared fork-join pool: graph jobs and their trials steal work
+ * from each other.
+ *
+ * Graphs are submitted smallest and largest in turn, so large graphs do not
+ * bunch up, and only while their estimated heap fits in a memory budget, so
+ * loading stops when solving falls behind. One tab separated line per graph
+ * is written and flushed as soon as it finishes, in finishing order.
+ */
+public class BatchRunner {
+
+    /**
+     * Heap a loaded graph and its solver take per byte of its file, roughly.
+     */
+    private static final int BYTES_PER_FILE_BYTE = 4;
+
+    private static final String HEADER = "file\tvertices\tedges\tkernel\tweight\tside\ttrials\tmillis";
+
+    private final ForkJoinPool pool;
+    private long memory = Runtime.getRuntime().maxMemory() / 2;
+    private long seed = RandomGenerator.newSeed();
+    private boolean kernel = true;
+    private final AtomicInteger solved = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+
+    /**
+     * @param pool pool shared by every graph and its trials
+     */
+    public BatchRunner(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * @param bytes heap the graphs in flight may take together, half the maximum heap by default
+     * @return this runner
+     */
+    public BatchRunner setMemoryBudget(long bytes) {
+        this.memory = bytes;
+        return this;
+    }
+
+    /**
+     * @param seed master seed, graph number i of the input list solves with stream i of it
+     * @return this runner
+     */
+    public BatchRunner setSeed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    /**
+     * @param kernel whether graphs are reduced to their kernel before solving, true by default
+     * @return this runner
+     */
+    public BatchRunner setKernel(boolean kernel) {
+        this.kernel = kernel;
+        return this;
+    }
+
+    /**
+     * Graph files of a batch: the regular files of a directory in name order,
+     * or the paths listed in a manifest, one per line, relative to the
+     * manifest. Blank lines and lines starting with # are skipped.
+     * @param source directory or manifest file
+     * @return graph files
+     * @throws IOException if the source can not be read
+     */
+    public static List<Path> inputs(Path source) throws IOException {
+        if (Files.isDirectory(source)) {
+            try (Stream<Path> files = Files.list(source)) {
+                return files.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+            }
+        }
+        List<Path> inputs = new ArrayList<>();
+        Path base = source.toAbsolutePath().getParent();
+        try (BufferedReader reader = Files.newBufferedReader(source)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (!line.isEmpty() && !line.startsWith("#")) {
+                    inputs.add(base.resolve(line));
+                }
+            }
+        }
+        return inputs;
+    }
+
+    /**
+     * Solves every graph and writes one line per graph to the output as it finishes.
+     * Graphs that fail to load or solve get a line with the error instead.
+     * @param inputs graph files
+     * @param output file the results are written to, replaced if it exists
+     * @throws IOException if the output can not be written
+     * @throws InterruptedException if interrupted while waiting for memory
+     */
+    public void run(List<Path> inputs, Path output) throws IOException, InterruptedException {
+        solved.set(0);
+        failed.set(0);
+        long[] sizes = new long[inputs.size()];
+        for (int i = 0; i < sizes.length; i++) {
+            try {
+                sizes[i] = Files.size(inputs.get(i));
+            } catch (IOException e) {
+                sizes[i] = 0;
+            }
+        }
+        MemoryBudget budget = new MemoryBudget(memory);
+
+        try (BufferedWriter out = Files.newBufferedWriter(output)) {
+            out.write(HEADER);
+            out.newLine();
+            out.flush();
+            List<ForkJoinTask<?>> jobs = new ArrayList<>(inputs.size());
+            for (int i : interleave(sizes)) {
+                // Blocks while the graphs in flight fill the budget
+                long taken = budget.acquire(sizes[i] * BYTES_PER_FILE_BYTE);
+                Path path = inputs.get(i);
+                long graphSeed = RandomGenerator.streamSeed(seed, i);
+                jobs.add(pool.submit(() -> {
+                    try {
+                        solve(path, graphSeed, out);
+                    } finally {
+                        budget.release(taken);
+                    }
+                }));
+            }
+            for (ForkJoinTask<?> job : jobs) {
+                job.join();
+            }
+        }
+    }
+
+    public int getSolved() {
+        return solved.get();
+    }
+
+    public int getFailed() {
+        return failed.get();
+    }
+
+    /*
+     * Loads, reduces and solves one graph, then writes its line. Errors of the
+     * graph, including running out of heap or stack, become its line
+     */
+    private void solve(Path path, long graphSeed, Writer out) {
+        String line;
+        try {
+            long start = System.nanoTime();
+            CompactGraph graph = GraphFile.load(path);
+            Kernel reduced = kernel ? Kernel.of(graph) : null;
+            CompactGraph target = (reduced != null) ? reduced.getGraph() : graph;
+            MinCutSolver solver = MinCutSolvers.choose(target, graphSeed, pool);
+            CutResult result = solver.minCut();
+            if (reduced != null) {
+                result = reduced.lift(result);
+            }
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            line = path + "\t" + graph.getNumVertices() + "\t" + graph.getNumEdges() + "\t" + target.getNumVertices()
+                    + "\t" + result.getWeight() + "\t" + result.getSide().cardinality() + "\t" + result.getTrials()
+                    + "\t" + millis;
+            solved.incrementAndGet();
+        } catch (IOException | RuntimeException | OutOfMemoryError | StackOverflowError e) {
+            // One graph too large or too deep for this JVM fails alone, its heap is already unreachable here
+            line = path + "\terror\t" + e;
+            failed.incrementAndGet();
+        }
+        synchronized (out) {
+            try {
+                out.write(line);
+                out.write(System.lineSeparator());
+                out.flush();
+            } catch (IOException e) {
+                System.err.println("Unable to write the result of " + path + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /*
+     * Indices by file size taking the smallest and the largest left in turn
+     */
+    static int[] interleave(long[] sizes) {
+        Integer[] bySize = new Integer[sizes.length];
+        for (int i = 0; i < bySize.length; i++) {
+            bySize[i] = i;
+        }
+        Arrays.sort(bySize, Comparator.comparingLong(i -> sizes[i]));
+        int[] order = new int[sizes.length];
+        int low = 0;
+        int high = bySize.length - 1;
+        for (int k = 0; k < order.length; k++) {
+            order[k] = ((k & 1) == 0) ? bySize[low++] : bySize[high--];
+        }
+        return order;
+    }
+}
@@ -0,0 +1,35 @@
+package src.com.karger.batch;
+
+/**
+ * Bytes of heap the graphs in flight may take. Acquiring blocks until enough
+ * is released, which is what holds the submission of new graphs back.
+ */
+class MemoryBudget {
+
+    private final long capacity;
+    private long available;
+
+    MemoryBudget(long capacity) {
+        this.capacity = Math.max(1, capacity);
+        this.available = this.capacity;
+    }
+
+    /**
+     * @param bytes estimated need, anything above the capacity waits for the whole budget
+     * @return bytes actually taken, to be released later
+     * @throws InterruptedException if interrupted while waiting
+     */
+    synchronized long acquire(long bytes) throws InterruptedException {
+        long taken = Math.min(Math.max(bytes, 1), capacity);
+        while (available < taken) {
+            wait();
+        }
+        available -= taken;
+        return taken;
+    }
+
+    synchronized void release(long bytes) {
+        available += bytes;
+        notifyAll();
+    }
+}
@@ -0,0 +1,122 @@
+package src.com.karger.generator;
+
+import src.com.karger.karger.CompactGraph;
+import src.com.karger.utils.RandomGenerator;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Runs the blocks of a graph in parallel. Block number i draws from the
+ * stream {@link RandomGenerator#stream}(seed, i), and blocks only depend on
+ * the graph parameters, so the result does not depend on the pool.
+ */
+final class Blocks {
+
+    /**
+     * Pairs of vertices a block of rows covers before a new block starts.
+     */
+    static final long BLOCK_PAIRS = 1L << 20;
+
+    private Blocks() {
+    }
+
+    static CompactGraph generate(ForkJoinPool pool, int numVertices, List<EdgeBlock> blocks,
+                                 boolean weighted, long seed) {
+        long edges = 0;
+        for (EdgeBlock block : blocks) {
+            block.at = (int) edges;
+            edges += block.count;
+        }
+        if (edges > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Too many edges for a compact graph: " + edges);
+        }
+        int[] src = new int[(int) edges];
+        int[] dst = new int[(int) edges];
+        double[] weight = new double[(int) edges];
+        pool.invoke(new Fill(blocks, 0, blocks.size(), src, dst, weight, weighted, seed));
+        return new CompactGraph(numVertices, src, dst, weight, weighted);
+    }
+
+    /**
+     * Splits edges among blocks proportionally to their share, rounding by
+     * largest remainder so the counts add up exactly.
+     * @param edges edges to split
+     * @param shares non negative share of every block
+     * @return edges of every block
+     */
+    static int[] quotas(long edges, double[] shares) {
+        double total = 0;
+        for (double share : shares) {
+            total += share;
+        }
+        int[] quota = new int[shares.length];
+        double[] remainder = new double[shares.length];
+        long given = 0;
+        for (int b = 0; b < shares.length; b++) {
+            double exact = (total > 0) ? edges * shares[b] / total : 0;
+            quota[b] = (int) Math.floor(exact);
+            remainder[b] = exact - quota[b];
+            given += quota[b];
+        }
+        // Rounding down leaves fewer edges than blocks to give away
+        for (long left = edges - given; left > 0; left--) {
+            int largest = 0;
+            for (int b = 1; b < shares.length; b++) {
+                if (remainder[b] > remainder[largest]) {
+                    largest = b;
+                }
+            }
+            quota[largest]++;
+            remainder[largest] = -1;
+        }
+        return quota;
+    }
+
+    private static class Fill extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<EdgeBlock> blocks;
+        private final int from;
+        private final int to;
+        private final int[] src;
+        private final int[] dst;
+        private final double[] weight;
+        private final boolean weighted;
+        private final long seed;
+
+        Fill(List<EdgeBlock> blocks, int from, int to, int[] src, int[] dst, double[] weight,
+             boolean weighted, long seed) {
+            this.blocks = blocks;
+            this.from = from;
+            this.to = to;
+            this.src = src;
+            this.dst = dst;
+            this.weight = weight;
+            this.weighted = weighted;
+            this.seed = seed;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new Fill(blocks, from, mid, src, dst, weight, weighted, seed),
+                        new Fill(blocks, mid, to, src, dst, weight, weighted, seed));
+                return;
+            }
+            if (from == to) {
+                return;
+            }
+            EdgeBlock block = blocks.get(from);
+            SplittableRandom rnd = RandomGenerator.stream(seed, from);
+            block.fill(rnd, src, dst);
+            for (int e = block.at; e < block.at + block.count; e++) {
+                weight[e] = weighted ? rnd.nextDouble() : 1;
+            }
+        }
+    }
+}
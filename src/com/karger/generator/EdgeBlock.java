@@ -0,0 +1,26 @@
+package src.com.karger.generator;
+
+import java.util.SplittableRandom;
+
+/**
+ * Fixed number of edges generated together from one random stream, written
+ * at a fixed position of the edge arrays so blocks never share any state.
+ */
+abstract class EdgeBlock {
+
+    final int count;
+    // First edge of the block in the graph, set once every block is known
+    int at;
+
+    EdgeBlock(int count) {
+        this.count = count;
+    }
+
+    /**
+     * Writes the ends of edges [at, at + count).
+     * @param rnd stream of this block
+     * @param src origin of every edge of the graph
+     * @param dst destination of every edge of the graph
+     */
+    abstract void fill(SplittableRandom rnd, int[] src, int[] dst);
+}
@@ -0,0 +1,128 @@
+package src.com.karger.generator;
+
+import src.com.karger.karger.CompactGraph;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Uniform random graphs with an exact number of edges, round(density * n(n-1)/2).
+ * Rows of the adjacency matrix are split in blocks of about the same number of
+ * pairs, every block gets its share of the edges and picks them uniformly among
+ * its pairs, in parallel and without ever retrying the whole graph.
+ */
+public class ErdosRenyiGenerator implements GraphGenerator {
+
+    private final int numVertices;
+    private final double density;
+    private final boolean weighted;
+    private final ForkJoinPool pool;
+
+    /**
+     * @param numVertices number of vertices
+     * @param density fraction of all the pairs of vertices joined by an edge, in [0, 1]
+     * @param weighted whether edges get uniform weights in [0, 1) instead of 1
+     */
+    public ErdosRenyiGenerator(int numVertices, double density, boolean weighted) {
+        this(numVertices, density, weighted, ForkJoinPool.commonPool());
+    }
+
+    public ErdosRenyiGenerator(int numVertices, double density, boolean weighted, ForkJoinPool pool) {
+        if (!(density >= 0 && density <= 1)) {
+            throw new IllegalArgumentException("Density must be in [0, 1]: " + density);
+        }
+        this.numVertices = numVertices;
+        this.density = density;
+        this.weighted = weighted;
+        this.pool = pool;
+    }
+
+    @Override
+    public CompactGraph generate(long seed) {
+        List<EdgeBlock> blocks = new ArrayList<>();
+        addBlocks(blocks, 0, numVertices, edges(numVertices, density));
+        return Blocks.generate(pool, numVertices, blocks, weighted, seed);
+    }
+
+    /**
+     * @return edges every generated graph has
+     */
+    public long getNumEdges() {
+        return edges(numVertices, density);
+    }
+
+    static long pairs(long n) {
+        return n * (n - 1) / 2;
+    }
+
+    static long edges(int n, double density) {
+        return Math.round(density * pairs(n));
+    }
+
+    /*
+     * Blocks of rows picking the given number of edges among the pairs of
+     * vertices [base, base + n)
+     */
+    static void addBlocks(List<EdgeBlock> blocks, int base, int n, long edges) {
+        List<int[]> rows = new ArrayList<>();
+        List<Long> sizes = new ArrayList<>();
+        int first = 0;
+        long pairs = 0;
+        for (int i = 0; i < n; i++) {
+            pairs += n - 1 - i;
+            if (pairs >= Blocks.BLOCK_PAIRS || i == n - 1) {
+                rows.add(new int[]{first, i + 1});
+                sizes.add(pairs);
+                first = i + 1;
+                pairs = 0;
+            }
+        }
+        double[] shares = new double[sizes.size()];
+        for (int b = 0; b < shares.length; b++) {
+            shares[b] = sizes.get(b);
+        }
+        int[] quota = Blocks.quotas(edges, shares);
+        for (int b = 0; b < quota.length; b++) {
+            blocks.add(new RowBlock(base, n, rows.get(b)[0], rows.get(b)[1], sizes.get(b), quota[b]));
+        }
+    }
+
+    /*
+     * Pairs (i, j), i < j, of rows [first, last) of an n vertex graph, numbered row by row
+     */
+    private static class RowBlock extends EdgeBlock {
+
+        private final int base;
+        private final int n;
+        private final int first;
+        private final int last;
+        private final long pairs;
+
+        RowBlock(int base, int n, int first, int last, long pairs, int count) {
+            super(count);
+            this.base = base;
+            this.n = n;
+            this.first = first;
+            this.last = last;
+            this.pairs = pairs;
+        }
+
+        @Override
+        void fill(SplittableRandom rnd, int[] src, int[] dst) {
+            long[] picked = PairSampler.select(rnd, count, pairs);
+            // Picks are sorted, so rows are walked once
+            int row = first;
+            long rowStart = 0;
+            for (int k = 0; k < count; k++) {
+                while (picked[k] >= rowStart + (n - 1 - row)) {
+                    rowStart += n - 1 - row;
+                    row++;
+                }
+                src[at + k] = base + row;
+                dst[at + k] = base + row + 1 + (int) (picked[k] - rowStart);
+            }
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package src.com.karger.generator;
+
+import src.com.karger.karger.CompactGraph;
+
+/**
+ * Builds synthetic graphs straight into a {@link CompactGraph}. The same seed
+ * always gives the same graph, whatever the number of threads generating it.
+ */
+public interface GraphGenerator {
+
+    /**
+     * @param seed master seed, every block of the graph draws from its own stream of it
+     * @return generated graph
+     */
+    CompactGraph generate(long seed);
+}
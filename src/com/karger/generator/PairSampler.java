@@ -0,0 +1,57 @@
+package src.com.karger.generator;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Uniform random subsets of [0, total) of an exact size, returned sorted.
+ */
+final class PairSampler {
+
+    /**
+     * Subsets of at least 1/DENSE of the range are picked by a single pass over it.
+     */
+    private static final int DENSE = 8;
+
+    private PairSampler() {
+    }
+
+    /**
+     * @param rnd random stream
+     * @param count size of the subset
+     * @param total size of the range
+     * @return count distinct values of [0, total) in increasing order
+     */
+    static long[] select(SplittableRandom rnd, int count, long total) {
+        if (count > total) {
+            throw new IllegalArgumentException("Cannot pick " + count + " distinct values out of " + total);
+        }
+        long[] values = new long[count];
+        if ((long) count * DENSE >= total) {
+            // Selection sampling: keep every value with probability needed / left
+            int k = 0;
+            for (long t = 0; k < count; t++) {
+                if ((total - t) * rnd.nextDouble() < count - k) {
+                    values[k++] = t;
+                }
+            }
+            return values;
+        }
+
+        // Few values out of a large range: draw, drop repeats and draw the missing ones again
+        int unique = 0;
+        while (unique < count) {
+            for (int i = unique; i < count; i++) {
+                values[i] = rnd.nextLong(total);
+            }
+            Arrays.sort(values);
+            unique = 1;
+            for (int i = 1; i < count; i++) {
+                if (values[i] != values[unique - 1]) {
+                    values[unique++] = values[i];
+                }
+            }
+        }
+        return values;
+    }
+}
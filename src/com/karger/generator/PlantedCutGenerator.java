@@ -0,0 +1,99 @@
+package src.com.karger.generator;
+
+import src.com.karger.karger.CompactGraph;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Two random graphs of the given density, vertices [0, side) and [side, n),
+ * joined by exactly the given number of random edges. When both sides are
+ * dense enough that no vertex has fewer edges than that, the planted cut is
+ * the minimum cut, which makes these graphs a known answer for the solvers.
+ */
+public class PlantedCutGenerator implements GraphGenerator {
+
+    private final int numVertices;
+    private final int side;
+    private final double density;
+    private final int cutEdges;
+    private final boolean weighted;
+    private final ForkJoinPool pool;
+
+    /**
+     * @param numVertices number of vertices
+     * @param side vertices of the first side, in [1, numVertices)
+     * @param density density of the edges inside each side, in [0, 1]
+     * @param cutEdges edges between the two sides
+     * @param weighted whether edges get uniform weights in [0, 1) instead of 1
+     */
+    public PlantedCutGenerator(int numVertices, int side, double density, int cutEdges, boolean weighted) {
+        this(numVertices, side, density, cutEdges, weighted, ForkJoinPool.commonPool());
+    }
+
+    public PlantedCutGenerator(int numVertices, int side, double density, int cutEdges, boolean weighted,
+                               ForkJoinPool pool) {
+        if (side < 1 || side >= numVertices) {
+            throw new IllegalArgumentException("Side must be in [1, " + numVertices + "): " + side);
+        }
+        if (!(density >= 0 && density <= 1)) {
+            throw new IllegalArgumentException("Density must be in [0, 1]: " + density);
+        }
+        if (cutEdges < 0 || cutEdges > (long) side * (numVertices - side)) {
+            throw new IllegalArgumentException("Cut edges must be in [0, " + (long) side * (numVertices - side)
+                    + "]: " + cutEdges);
+        }
+        this.numVertices = numVertices;
+        this.side = side;
+        this.density = density;
+        this.cutEdges = cutEdges;
+        this.weighted = weighted;
+        this.pool = pool;
+    }
+
+    @Override
+    public CompactGraph generate(long seed) {
+        List<EdgeBlock> blocks = new ArrayList<>();
+        blocks.add(new CrossBlock(side, numVertices - side, cutEdges));
+        ErdosRenyiGenerator.addBlocks(blocks, 0, side, ErdosRenyiGenerator.edges(side, density));
+        ErdosRenyiGenerator.addBlocks(blocks, side, numVertices - side,
+                ErdosRenyiGenerator.edges(numVertices - side, density));
+        return Blocks.generate(pool, numVertices, blocks, weighted, seed);
+    }
+
+    /**
+     * @return vertices of the planted side, the one with vertex 0
+     */
+    public BitSet getSide() {
+        BitSet planted = new BitSet(numVertices);
+        planted.set(0, side);
+        return planted;
+    }
+
+    /*
+     * Pairs (i, j) with i in [0, a) and j in [a, a + b), numbered row by row
+     */
+    private static class CrossBlock extends EdgeBlock {
+
+        private final int a;
+        private final int b;
+
+        CrossBlock(int a, int b, int count) {
+            super(count);
+            this.a = a;
+            this.b = b;
+        }
+
+        @Override
+        void fill(SplittableRandom rnd, int[] src, int[] dst) {
+            long[] picked = PairSampler.select(rnd, count, (long) a * b);
+            for (int k = 0; k < count; k++) {
+                src[at + k] = (int) (picked[k] / b);
+                dst[at + k] = a + (int) (picked[k] % b);
+            }
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package src.com.karger.generator;
+
+import src.com.karger.karger.CompactGraph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Chung-Lu style graphs with a power law degree distribution and an exact
+ * number of edges. Vertex i gets the weight (i + 1)^(-1 / (exponent - 1)) and
+ * a pair is picked with probability proportional to the product of the
+ * weights of its ends, so expected degrees follow the weights and the
+ * fraction of vertices of degree k falls like k^-exponent.
+ *
+ * Rows are split in blocks of about the same weight, every block gets its
+ * share of the edges and draws its pairs, dropping repeats, in parallel.
+ * Only sparse graphs are supported, at most a quarter of the pairs in any block.
+ */
+public class PowerLawGenerator implements GraphGenerator {
+
+    /**
+     * Largest fraction of the pairs of a block it can be asked to pick, so
+     * drawing again the repeated pairs stays cheap.
+     */
+    private static final int MAX_FILL = 4;
+
+    private final int numVertices;
+    private final double averageDegree;
+    private final double exponent;
+    private final boolean weighted;
+    private final ForkJoinPool pool;
+
+    /**
+     * @param numVertices number of vertices
+     * @param averageDegree average number of edges per vertex, at most (numVertices - 1) / 4
+     * @param exponent exponent of the degree distribution, greater than 2
+     * @param weighted whether edges get uniform weights in [0, 1) instead of 1
+     */
+    public PowerLawGenerator(int numVertices, double averageDegree, double exponent, boolean weighted) {
+        this(numVertices, averageDegree, exponent, weighted, ForkJoinPool.commonPool());
+    }
+
+    public PowerLawGenerator(int numVertices, double averageDegree, double exponent, boolean weighted,
+                             ForkJoinPool pool) {
+        if (!(exponent > 2)) {
+            throw new IllegalArgumentException("Exponent must be greater than 2: " + exponent);
+        }
+        if (!(averageDegree >= 0) || averageDegree * numVertices / 2 > ErdosRenyiGenerator.pairs(numVertices) / MAX_FILL) {
+            throw new IllegalArgumentException("Average degree must be in [0, " + (numVertices - 1.0) / MAX_FILL
+                    + "]: " + averageDegree);
+        }
+        this.numVertices = numVertices;
+        this.averageDegree = averageDegree;
+        this.exponent = exponent;
+        this.weighted = weighted;
+        this.pool = pool;
+    }
+
+    @Override
+    public CompactGraph generate(long seed) {
+        int n = numVertices;
+        long edges = Math.round(averageDegree * n / 2);
+
+        // prefix[i] is the weight of vertices [0, i), rowMass[i] the weight of the pairs of row i
+        double[] prefix = new double[n + 1];
+        for (int i = 0; i < n; i++) {
+            prefix[i + 1] = prefix[i] + Math.pow(i + 1, -1 / (exponent - 1));
+        }
+        double[] rowMass = new double[n];
+        double totalMass = 0;
+        for (int i = 0; i < n; i++) {
+            rowMass[i] = (prefix[i + 1] - prefix[i]) * (prefix[n] - prefix[i + 1]);
+            totalMass += rowMass[i];
+        }
+
+        // Blocks of rows of similar weight, as many as it takes to keep blocks small
+        int numBlocks = (int) Math.max(1, Math.min(n, edges * MAX_FILL / Blocks.BLOCK_PAIRS + 1));
+        List<int[]> rows = new ArrayList<>();
+        List<Double> masses = new ArrayList<>();
+        int first = 0;
+        double mass = 0;
+        for (int i = 0; i < n; i++) {
+            mass += rowMass[i];
+            if (mass >= totalMass / numBlocks || i == n - 1) {
+                rows.add(new int[]{first, i + 1});
+                masses.add(mass);
+                first = i + 1;
+                mass = 0;
+            }
+        }
+        int[] quota = capQuotas(edges, rows, masses, n);
+
+        List<EdgeBlock> blocks = new ArrayList<>();
+        for (int b = 0; b < quota.length; b++) {
+            blocks.add(new WeightedRowBlock(prefix, rows.get(b)[0], rows.get(b)[1], quota[b]));
+        }
+        return Blocks.generate(pool, n, blocks, weighted, seed);
+    }
+
+    /*
+     * Quotas proportional to the block weights, except that no block picks
+     * more than 1/MAX_FILL of its pairs: what a block can not take is given
+     * to the others, again by weight
+     */
+    private static int[] capQuotas(long edges, List<int[]> rows, List<Double> masses, int n) {
+        int numBlocks = rows.size();
+        long[] cap = new long[numBlocks];
+        for (int b = 0; b < numBlocks; b++) {
+            long pairs = 0;
+            for (int i = rows.get(b)[0]; i < rows.get(b)[1]; i++) {
+                pairs += n - 1 - i;
+            }
+            cap[b] = (pairs + MAX_FILL - 1) / MAX_FILL;
+        }
+        int[] quota = new int[numBlocks];
+        boolean[] full = new boolean[numBlocks];
+        long left = edges;
+        while (left > 0) {
+            double[] shares = new double[numBlocks];
+            for (int b = 0; b < numBlocks; b++) {
+                shares[b] = full[b] ? 0 : masses.get(b);
+            }
+            int[] extra = Blocks.quotas(left, shares);
+            boolean capped = false;
+            for (int b = 0; b < numBlocks; b++) {
+                int take = (int) Math.min(extra[b], cap[b] - quota[b]);
+                quota[b] += take;
+                left -= take;
+                if (quota[b] == cap[b] && !full[b]) {
+                    full[b] = true;
+                    capped = true;
+                }
+            }
+            if (!capped && left > 0) {
+                throw new IllegalStateException("Unable to place " + left + " edges");
+            }
+        }
+        return quota;
+    }
+
+    /*
+     * Pairs (i, j), i < j, with i in rows [first, last): i is drawn by the
+     * weight of its row and j by its own weight among the vertices after i
+     */
+    private static class WeightedRowBlock extends EdgeBlock {
+
+        private final double[] prefix;
+        private final int first;
+        private final int last;
+
+        WeightedRowBlock(double[] prefix, int first, int last, int count) {
+            super(count);
+            this.prefix = prefix;
+            this.first = first;
+            this.last = last;
+        }
+
+        @Override
+        void fill(SplittableRandom rnd, int[] src, int[] dst) {
+            int n = prefix.length - 1;
+            double[] rowPrefix = new double[last - first + 1];
+            for (int i = first; i < last; i++) {
+                rowPrefix[i - first + 1] = rowPrefix[i - first]
+                        + (prefix[i + 1] - prefix[i]) * (prefix[n] - prefix[i + 1]);
+            }
+
+            // Pairs as i * n + j, sorted to drop repeats, the missing ones are drawn again
+            long[] pairs = new long[count];
+            int unique = 0;
+            while (unique < count) {
+                for (int k = unique; k < count; k++) {
+                    int i = first + search(rowPrefix, rnd.nextDouble() * rowPrefix[last - first]);
+                    int j = search(prefix, prefix[i + 1] + rnd.nextDouble() * (prefix[n] - prefix[i + 1]));
+                    j = Math.max(j, i + 1);
+                    pairs[k] = (long) i * n + j;
+                }
+                Arrays.sort(pairs);
+                unique = 1;
+                for (int k = 1; k < count; k++) {
+                    if (pairs[k] != pairs[unique - 1]) {
+                        pairs[unique++] = pairs[k];
+                    }
+                }
+            }
+            for (int k = 0; k < count; k++) {
+                src[at + k] = (int) (pairs[k] / n);
+                dst[at + k] = (int) (pairs[k] % n);
+            }
+        }
+
+        /*
+         * Index i such that prefix[i] <= value < prefix[i + 1], clamped to the last interval
+         */
+        private static int search(double[] prefix, double value) {
+            int lo = 0;
+            int hi = prefix.length - 2;
+            while (lo < hi) {
+                int mid = (lo + hi + 1) >>> 1;
+                if (prefix[mid] <= value) {
+                    lo = mid;
+                } else {
+                    hi = mid - 1;
+                }
+            }
+            return lo;
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package src.com.karger.io;
+
+import src.com.karger.karger.CompactGraph;
+import src.com.karger.karger.CutResult;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+import java.util.zip.CRC32;
+
+/**
+ * State of a seeded trial run, enough to carry on after the process dies.
+ * Trial i always draws from stream i of the seed, so a run resumed at the
+ * next trial number gives the same cut, hits and trial count as a run that
+ * was never interrupted. All values are little endian:
+ * <pre>
+ *   int    magic       "KRCP"
+ *   int    version
+ *   long   seed        master seed of the run
+ *   long   fingerprint of the graph the trials run on, see {@link #fingerprint}
+ *   long   next        number of the first trial still to run
+ *   double weight      best cut so far, infinite before the first trial
+ *   long   hits        trials that found a cut of that weight
+ *   long   trials      trials completed
+ *   long   trial       first trial that found the best cut, -1 if none
+ *   int    words       length of the side
+ *   long[] side        vertices on the side of vertex 0, as BitSet words
+ *   long   crc         CRC-32 of everything before it
+ * </pre>
+ * A checkpoint is written to a temporary file next to the target, forced to
+ * disk and moved over the target, so a crash leaves either the previous
+ * checkpoint or the new one. It takes a few dozen bytes plus one bit per
+ * vertex, cheap enough to write every few seconds.
+ */
+public class Checkpoint {
+
+    private static final int MAGIC = 0x4B524350;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 68;
+
+    private final long seed;
+    private final long fingerprint;
+    private final long next;
+    private final CutResult best;
+
+    /**
+     * @param seed master seed of the run
+     * @param fingerprint fingerprint of the graph, see {@link #fingerprint}
+     * @param next number of the first trial still to run
+     * @param best best cut of the trials before next
+     */
+    public Checkpoint(long seed, long fingerprint, long next, CutResult best) {
+        this.seed = seed;
+        this.fingerprint = fingerprint;
+        this.next = next;
+        this.best = best;
+    }
+
+    /**
+     * Hash of the size, edges and weights of a graph, to refuse resuming a run on another graph.
+     * @param graph graph the trials run on
+     * @return 64 bit fingerprint
+     */
+    public static long fingerprint(CompactGraph graph) {
+        long h = mix(graph.getNumVertices() * 0x9E3779B97F4A7C15L + graph.getNumEdges());
+        for (int e = 0; e < graph.getNumEdges(); e++) {
+            h = mix(h ^ (((long) graph.getSrc(e) << 32) | graph.getDst(e)));
+            h = mix(h ^ Double.doubleToLongBits(graph.getWeight(e)));
+        }
+        return h;
+    }
+
+    /**
+     * Writes the checkpoint atomically, replacing the file if it exists.
+     * @param path checkpoint file
+     * @throws IOException if the file can not be written
+     */
+    public void write(Path path) throws IOException {
+        long[] side = best.getSide().toLongArray();
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + side.length * Long.BYTES + Long.BYTES)
+                                      .order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(VERSION).putLong(seed).putLong(fingerprint).putLong(next)
+              .putDouble(best.getWeight()).putLong(best.getHits()).putLong(best.getTrials()).putLong(best.getTrial())
+              .putInt(side.length);
+        for (long word : side) {
+            buffer.putLong(word);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, buffer.position());
+        buffer.putLong(crc.getValue());
+        buffer.flip();
+
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        }
+        try {
+            Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * @param path checkpoint file written by {@link #write}
+     * @return the checkpoint
+     * @throws IOException if the file can not be read, is not a checkpoint or is corrupt
+     */
+    public static Checkpoint read(Path path) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path)).order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.remaining() < HEADER_BYTES + Long.BYTES || buffer.getInt() != MAGIC) {
+            throw new IOException("Not a checkpoint file: " + path);
+        }
+        int version = buffer.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported checkpoint version " + version + ": " + path);
+        }
+        long seed = buffer.getLong();
+        long fingerprint = buffer.getLong();
+        long next = buffer.getLong();
+        double weight = buffer.getDouble();
+        long hits = buffer.getLong();
+        long trials = buffer.getLong();
+        long trial = buffer.getLong();
+        int words = buffer.getInt();
+        if (words < 0 || buffer.remaining() != (words + 1L) * Long.BYTES) {
+            throw new IOException("Truncated checkpoint file: " + path);
+        }
+        long[] side = new long[words];
+        for (int i = 0; i < words; i++) {
+            side[i] = buffer.getLong();
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, buffer.position());
+        if (buffer.getLong() != crc.getValue()) {
+            throw new IOException("Corrupt checkpoint file: " + path);
+        }
+        return new Checkpoint(seed, fingerprint, next, new CutResult(weight, BitSet.valueOf(side), hits, trials, trial));
+    }
+
+    /**
+     * @param graph graph the trials would resume on
+     * @return whether the checkpoint was taken on the same graph
+     */
+    public boolean matches(CompactGraph graph) {
+        return fingerprint == fingerprint(graph);
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public long getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * @return number of the first trial still to run
+     */
+    public long getNext() {
+        return next;
+    }
+
+    /**
+     * @return best cut of the trials before {@link #getNext()}
+     */
+    public CutResult getBest() {
+        return best;
+    }
+
+    public String toString() {
+        return "Checkpoint at trial " + next + ", best " + best;
+    }
+
+    /* SplitMix64 finalizer */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,374 @@
+package src.com.karger.io;
+
+import src.com.karger.karger.CompactGraph;
+import src.com.karger.metrics.Metrics;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Binary CSR graph format. All values are little endian:
+ * <pre>
+ *   int    magic      "KRGR"
+ *   int    version
+ *   int    flags      bit 0 set for weighted graphs
+ *   int    numVertices
+ *   long   numEntries adjacency entries, twice the number of edges
+ *   long[] offsets    numVertices + 1 offsets into the entries
+ *   int[]  neighbours numEntries neighbour ids
+ *   double[] weights  numEntries weights, only for weighted graphs
+ *   int[]  src        numEntries / 2 edge ends, since version 2
+ *   int[]  dst        numEntries / 2 other edge ends, since version 2
+ *   double[] edgeWeights numEntries / 2 edge weights, since version 2 and only for weighted graphs
+ * </pre>
+ * Files are written with a file channel and opened with a read only memory
+ * map. The edge list sections keep the edges in the order of the written
+ * graph, and {@link MappedGraph#toCompact()} wraps them in a CompactGraph
+ * without copying, so every trial and thread reads the same mapped pages.
+ * Version 1 files have no edge list and are copied onto the heap instead.
+ */
+public class GraphFile {
+
+    private static final int MAGIC = 0x4B524752;
+    private static final int VERSION = 2;
+    // Files without the edge list sections, still read
+    private static final int CSR_VERSION = 1;
+    private static final int WEIGHTED = 1;
+    private static final int HEADER_BYTES = 24;
+    private static final int BUFFER_BYTES = 1 << 20;
+    // Largest array the VM allocates, the adjacency of a written graph must fit one
+    private static final int MAX_ENTRIES = Integer.MAX_VALUE - 8;
+
+    private GraphFile() {
+    }
+
+    /**
+     * Writes the graph in CSR form followed by its edge list.
+     * @param graph graph to write
+     * @param path destination file, replaced if it exists
+     * @throws IOException if the file can not be written
+     * @throws IllegalArgumentException if the graph has more than 2^31 - 9 adjacency entries
+     */
+    public static void write(CompactGraph graph, Path path) throws IOException {
+        int n = graph.getNumVertices();
+        Adjacency adjacency = new Adjacency(graph);
+        long[] offsets = adjacency.offsets;
+        int[] neighbours = adjacency.neighbours;
+        double[] weights = adjacency.weights;
+        int entries = neighbours.length;
+        int m = graph.getNumEdges();
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(graph.isWeighted() ? WEIGHTED : 0)
+                  .putInt(n).putLong(entries);
+            for (long offset : offsets) {
+                if (buffer.remaining() < Long.BYTES) drain(channel, buffer);
+                buffer.putLong(offset);
+            }
+            for (int neighbour : neighbours) {
+                if (buffer.remaining() < Integer.BYTES) drain(channel, buffer);
+                buffer.putInt(neighbour);
+            }
+            if (weights != null) {
+                for (double weight : weights) {
+                    if (buffer.remaining() < Double.BYTES) drain(channel, buffer);
+                    buffer.putDouble(weight);
+                }
+            }
+            for (int e = 0; e < m; e++) {
+                if (buffer.remaining() < Integer.BYTES) drain(channel, buffer);
+                buffer.putInt(graph.getSrc(e));
+            }
+            for (int e = 0; e < m; e++) {
+                if (buffer.remaining() < Integer.BYTES) drain(channel, buffer);
+                buffer.putInt(graph.getDst(e));
+            }
+            if (graph.isWeighted()) {
+                for (int e = 0; e < m; e++) {
+                    if (buffer.remaining() < Double.BYTES) drain(channel, buffer);
+                    buffer.putDouble(graph.getWeight(e));
+                }
+            }
+            drain(channel, buffer);
+        }
+    }
+
+    /**
+     * Writes the graph as text in the format of Graph.saveGraph, a line per
+     * vertex like "i:j,k" or "i:j-weight,k-weight", with every edge at both ends.
+     * Weights are written as plain decimals, so makeCopy can read them back.
+     * @param graph graph to write
+     * @param path destination file, replaced if it exists
+     * @throws IOException if the file can not be written
+     * @throws IllegalArgumentException if the graph has more than 2^31 - 9 adjacency entries
+     */
+    public static void writeText(CompactGraph graph, Path path) throws IOException {
+        Adjacency adjacency = new Adjacency(graph);
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.US_ASCII)) {
+            StringBuilder line = new StringBuilder();
+            for (int v = 0; v < graph.getNumVertices(); v++) {
+                line.setLength(0);
+                line.append(v).append(':');
+                for (int i = (int) adjacency.offsets[v]; i < adjacency.offsets[v + 1]; i++) {
+                    if (i > adjacency.offsets[v]) {
+                        line.append(',');
+                    }
+                    line.append(adjacency.neighbours[i]);
+                    if (adjacency.weights != null) {
+                        // Never in exponent form: makeCopy splits on '-' and would read 9.5E-4 as 9.5
+                        line.append('-').append(BigDecimal.valueOf(adjacency.weights[i]).toPlainString());
+                    }
+                }
+                writer.append(line).append('\n');
+            }
+        }
+    }
+
+    private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Maps a graph file in memory, each section in chunks of 1 GiB, so files
+     * past 2^31 entries map too. Every offset and vertex id is checked once
+     * here, so a damaged file is rejected before any trial reads it.
+     * @param path file written by {@link #write}
+     * @return read only view of the file
+     * @throws IOException if the file can not be read or is not a graph file
+     */
+    public static MappedGraph map(Path path) throws IOException {
+        long start = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining()) {
+                if (channel.read(header, header.position()) < 0) {
+                    throw new IOException("Truncated graph file header: " + path);
+                }
+            }
+            header.flip();
+            if (header.getInt() != MAGIC) {
+                throw new IOException("Not a graph file: " + path);
+            }
+            int version = header.getInt();
+            if (version != VERSION && version != CSR_VERSION) {
+                throw new IOException("Unsupported graph file version " + version + ": " + path);
+            }
+            boolean weighted = (header.getInt() & WEIGHTED) != 0;
+            int n = header.getInt();
+            long entries = header.getLong();
+            if (n < 0 || entries < 0 || entries % 2 != 0 || entries > channel.size() / Integer.BYTES) {
+                throw new IOException("Corrupt graph file header, " + n + " vertices and "
+                        + entries + " entries: " + path);
+            }
+            long edges = entries / 2;
+
+            long position = HEADER_BYTES;
+            LongBuffer[] offsets = longs(section(channel, position, (n + 1L) * Long.BYTES));
+            position += (n + 1L) * Long.BYTES;
+            IntBuffer[] neighbours = ints(section(channel, position, entries * Integer.BYTES));
+            position += entries * Integer.BYTES;
+            DoubleBuffer[] weights = weighted ? doubles(section(channel, position, entries * Double.BYTES)) : null;
+            position += weighted ? entries * Double.BYTES : 0;
+            IntBuffer[] src = null;
+            IntBuffer[] dst = null;
+            DoubleBuffer[] edgeWeights = null;
+            if (version == VERSION) {
+                src = ints(section(channel, position, edges * Integer.BYTES));
+                position += edges * Integer.BYTES;
+                dst = ints(section(channel, position, edges * Integer.BYTES));
+                position += edges * Integer.BYTES;
+                edgeWeights = weighted ? doubles(section(channel, position, edges * Double.BYTES)) : null;
+            }
+
+            // The mapping stays valid after the channel is closed
+            MappedGraph graph = new MappedGraph(n, entries, weighted, offsets, neighbours, weights,
+                    src, dst, edgeWeights);
+            check(graph, path);
+            if (Metrics.isEnabled()) {
+                // The check read the ids, the bytes are the ones the graph will be read from
+                Metrics.sink().graphLoaded(path.toString(), channel.size(), edges, System.nanoTime() - start);
+            }
+            return graph;
+        }
+    }
+
+    /*
+     * The accessors trust the file, so the offsets must climb from 0 to the
+     * number of entries and every neighbour and edge end must be a vertex.
+     * One sequential pass over the offsets and the ids, the weights are not read
+     */
+    private static void check(MappedGraph graph, Path path) throws IOException {
+        int n = graph.getNumVertices();
+        long previous = 0;
+        for (int v = 0; v <= n; v++) {
+            long offset = graph.offset(v);
+            if (offset < previous || offset > graph.getNumEntries() || (v == 0 && offset != 0)) {
+                throw new IOException("Corrupt graph file, offset " + offset + " of vertex " + v + ": " + path);
+            }
+            for (long i = previous; i < offset; i++) {
+                int u = graph.neighbour(i);
+                if (u < 0 || u >= n) {
+                    throw new IOException("Corrupt graph file, neighbour " + u + " of vertex " + (v - 1)
+                            + " is not a vertex: " + path);
+                }
+            }
+            previous = offset;
+        }
+        if (previous != graph.getNumEntries()) {
+            throw new IOException("Corrupt graph file, offsets end at " + previous + " of "
+                    + graph.getNumEntries() + " entries: " + path);
+        }
+        if (graph.hasEdgeList()) {
+            for (long e = 0; e < graph.getNumEntries() / 2; e++) {
+                int a = graph.edgeSrc(e);
+                int b = graph.edgeDst(e);
+                if (a < 0 || a >= n || b < 0 || b >= n) {
+                    throw new IOException("Corrupt graph file, edge " + e + " joins " + a + " and " + b
+                            + " out of " + n + " vertices: " + path);
+                }
+            }
+        }
+    }
+
+    private static LongBuffer[] longs(MappedByteBuffer[] chunks) {
+        LongBuffer[] buffers = new LongBuffer[chunks.length];
+        for (int i = 0; i < chunks.length; i++) {
+            buffers[i] = chunks[i].asLongBuffer();
+        }
+        return buffers;
+    }
+
+    private static IntBuffer[] ints(MappedByteBuffer[] chunks) {
+        IntBuffer[] buffers = new IntBuffer[chunks.length];
+        for (int i = 0; i < chunks.length; i++) {
+            buffers[i] = chunks[i].asIntBuffer();
+        }
+        return buffers;
+    }
+
+    private static DoubleBuffer[] doubles(MappedByteBuffer[] chunks) {
+        DoubleBuffer[] buffers = new DoubleBuffer[chunks.length];
+        for (int i = 0; i < chunks.length; i++) {
+            buffers[i] = chunks[i].asDoubleBuffer();
+        }
+        return buffers;
+    }
+
+    /*
+     * Maps bytes from position in chunks of 1 GiB, all full but the last
+     */
+    private static MappedByteBuffer[] section(FileChannel channel, long position, long bytes) throws IOException {
+        if (position + bytes > channel.size()) {
+            throw new IOException("Truncated graph file, expected at least " + (position + bytes) + " bytes");
+        }
+        long chunkBytes = 1L << CompactGraph.CHUNK_SHIFT;
+        MappedByteBuffer[] chunks = new MappedByteBuffer[(int) Math.max((bytes + chunkBytes - 1) / chunkBytes, 1)];
+        for (int i = 0; i < chunks.length; i++) {
+            long offset = i * chunkBytes;
+            chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, position + offset,
+                    Math.max(Math.min(chunkBytes, bytes - offset), 0));
+            chunks[i].order(ByteOrder.LITTLE_ENDIAN);
+        }
+        return chunks;
+    }
+
+    /**
+     * Reads a graph saved as text by Graph.saveGraph, lines like "i:j,k" or
+     * "i:j-weight,k-weight". Each edge is kept once, from its lower end.
+     * The file is streamed, see {@link StreamingGraphReader}.
+     * @param path text graph file
+     * @return compact graph, weighted if the file has weights
+     * @throws IOException if the file can not be read or parsed
+     */
+    public static CompactGraph readText(Path path) throws IOException {
+        return new StreamingGraphReader(StreamingGraphReader.Format.ADJACENCY).read(path);
+    }
+
+    /**
+     * Reads a graph in the format its name says: .txt files as written by
+     * Graph.saveGraph, .edges files as edge lists, anything else as binary,
+     * mapped and read in place.
+     * @param path graph file
+     * @return compact graph
+     * @throws IOException if the file can not be read or parsed
+     */
+    public static CompactGraph load(Path path) throws IOException {
+        String name = path.getFileName().toString();
+        if (name.endsWith(".txt")) {
+            return readText(path);
+        } else if (name.endsWith(".edges")) {
+            return new StreamingGraphReader(StreamingGraphReader.Format.EDGE_LIST).read(path);
+        }
+        return map(path).toCompact();
+    }
+
+    /**
+     * Converts a text graph file into the binary format.
+     * @param text file written by Graph.saveGraph
+     * @param binary destination file
+     * @throws IOException if either file fails
+     */
+    public static void convert(Path text, Path binary) throws IOException {
+        write(readText(text), binary);
+    }
+
+    /*
+     * Every edge placed at both ends: degrees, then offsets, then the entries
+     */
+    private static class Adjacency {
+
+        final long[] offsets;
+        final int[] neighbours;
+        final double[] weights;
+
+        Adjacency(CompactGraph graph) {
+            int n = graph.getNumVertices();
+            int m = graph.getNumEdges();
+            offsets = new long[n + 1];
+            for (int e = 0; e < m; e++) {
+                offsets[graph.getSrc(e) + 1]++;
+                offsets[graph.getDst(e) + 1]++;
+            }
+            for (int v = 0; v < n; v++) {
+                offsets[v + 1] += offsets[v];
+            }
+            if (offsets[n] > MAX_ENTRIES) {
+                throw new IllegalArgumentException("Graph of " + m + " edges has " + offsets[n]
+                        + " adjacency entries, more than the " + MAX_ENTRIES + " it can write");
+            }
+            int[] fill = new int[n];
+            neighbours = new int[(int) offsets[n]];
+            weights = graph.isWeighted() ? new double[neighbours.length] : null;
+            for (int e = 0; e < m; e++) {
+                int a = graph.getSrc(e);
+                int b = graph.getDst(e);
+                int i = (int) offsets[a] + fill[a]++;
+                int j = (int) offsets[b] + fill[b]++;
+                neighbours[i] = b;
+                neighbours[j] = a;
+                if (weights != null) {
+                    weights[i] = graph.getWeight(e);
+                    weights[j] = graph.getWeight(e);
+                }
+            }
+        }
+    }
+}
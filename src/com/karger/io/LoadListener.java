@@ -0,0 +1,16 @@
+package src.com.karger.io;
+
+/**
+ * Receives the progress of a {@link StreamingGraphReader}, once per chunk read
+ * and once more when the whole file has been read.
+ */
+public interface LoadListener {
+
+    /**
+     * @param bytesRead bytes of the file read so far
+     * @param totalBytes size of the file
+     * @param edges edges loaded so far
+     * @param bytesPerSecond average read rate since loading started
+     */
+    void progress(long bytesRead, long totalBytes, long edges, double bytesPerSecond);
+}
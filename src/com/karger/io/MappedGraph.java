@@ -0,0 +1,164 @@
+package src.com.karger.io;
+
+import src.com.karger.karger.CompactGraph;
+
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+
+/**
+ * Read only view of a graph file mapped in memory by {@link GraphFile}.
+ * The neighbours of vertex v are the entries in [offset(v), offset(v + 1)),
+ * every undirected edge appearing once at each end, and files since version
+ * 2 also hold the edge list the contraction engines read. The buffers are
+ * only read with absolute gets, so the view can be shared by any number of
+ * threads, and {@link #toCompact()} wraps the edge list without copying it.
+ *
+ * A buffer can not go past 2^31 bytes, so each section is mapped in chunks
+ * of 2^CompactGraph.CHUNK_SHIFT bytes and a long entry is split into a chunk
+ * and an index within it.
+ */
+public class MappedGraph {
+
+    private static final int LONG_SHIFT = CompactGraph.CHUNK_SHIFT - 3;
+    private static final int INT_SHIFT = CompactGraph.CHUNK_SHIFT - 2;
+
+    private final int numVertices;
+    private final long numEntries;
+    private final boolean weighted;
+    private final LongBuffer[] offsets;
+    private final IntBuffer[] neighbours;
+    private final DoubleBuffer[] weights;
+    // Edge list, null for version 1 files
+    private final IntBuffer[] src;
+    private final IntBuffer[] dst;
+    private final DoubleBuffer[] edgeWeights;
+
+    MappedGraph(int numVertices, long numEntries, boolean weighted,
+                LongBuffer[] offsets, IntBuffer[] neighbours, DoubleBuffer[] weights,
+                IntBuffer[] src, IntBuffer[] dst, DoubleBuffer[] edgeWeights) {
+        this.numVertices = numVertices;
+        this.numEntries = numEntries;
+        this.weighted = weighted;
+        this.offsets = offsets;
+        this.neighbours = neighbours;
+        this.weights = weights;
+        this.src = src;
+        this.dst = dst;
+        this.edgeWeights = edgeWeights;
+    }
+
+    public int getNumVertices() {
+        return numVertices;
+    }
+
+    public long getNumEntries() {
+        return numEntries;
+    }
+
+    public boolean isWeighted() {
+        return weighted;
+    }
+
+    /**
+     * @return number of edges, half the adjacency entries
+     */
+    public long getNumEdges() {
+        return numEntries / 2;
+    }
+
+    /**
+     * @return whether the file holds the edge list, so toCompact and edgeSrc read it in place
+     */
+    public boolean hasEdgeList() {
+        return src != null;
+    }
+
+    public long offset(int v) {
+        return offsets[v >>> LONG_SHIFT].get(v & ((1 << LONG_SHIFT) - 1));
+    }
+
+    public int degree(int v) {
+        return Math.toIntExact(offset(v + 1) - offset(v));
+    }
+
+    public int neighbour(long entry) {
+        return neighbours[(int) (entry >>> INT_SHIFT)].get((int) (entry & ((1 << INT_SHIFT) - 1)));
+    }
+
+    /**
+     * @param entry adjacency entry
+     * @return weight of the edge, 1 for unweighted graphs
+     */
+    public double weight(long entry) {
+        return weighted ? weights[(int) (entry >>> LONG_SHIFT)].get((int) (entry & ((1 << LONG_SHIFT) - 1))) : 1;
+    }
+
+    /**
+     * @param e edge id, the edge list must be there
+     * @return one end of the edge
+     */
+    public int edgeSrc(long e) {
+        return src[(int) (e >>> INT_SHIFT)].get((int) (e & ((1 << INT_SHIFT) - 1)));
+    }
+
+    /**
+     * @param e edge id, the edge list must be there
+     * @return other end of the edge
+     */
+    public int edgeDst(long e) {
+        return dst[(int) (e >>> INT_SHIFT)].get((int) (e & ((1 << INT_SHIFT) - 1)));
+    }
+
+    /**
+     * @param e edge id, the edge list must be there
+     * @return weight of the edge, 1 for unweighted graphs
+     */
+    public double edgeWeight(long e) {
+        return weighted ? edgeWeights[(int) (e >>> LONG_SHIFT)].get((int) (e & ((1 << LONG_SHIFT) - 1))) : 1;
+    }
+
+    /**
+     * Graph the contraction engines run on. The edge list of the file is
+     * wrapped as it is, in the order it was written, and read in place by
+     * every trial. Version 1 files have none, so their edges are copied to
+     * the heap once each, from their lower end.
+     * @return compact graph
+     * @throws IllegalStateException if the graph has 2^31 edges or more,
+     * those only fit an OffHeapGraph
+     */
+    public CompactGraph toCompact() {
+        if (getNumEdges() > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Too many edges for a compact graph: " + getNumEdges());
+        }
+        if (hasEdgeList()) {
+            return CompactGraph.wrap(numVertices, (int) getNumEdges(), src, dst, weighted ? edgeWeights : null);
+        }
+
+        int edges = 0;
+        for (int v = 0; v < numVertices; v++) {
+            for (long i = offset(v); i < offset(v + 1); i++) {
+                if (neighbour(i) > v) {
+                    edges++;
+                }
+            }
+        }
+
+        int[] from = new int[edges];
+        int[] to = new int[edges];
+        double[] weight = new double[edges];
+        int e = 0;
+        for (int v = 0; v < numVertices; v++) {
+            for (long i = offset(v); i < offset(v + 1); i++) {
+                int u = neighbour(i);
+                if (u > v) {
+                    from[e] = v;
+                    to[e] = u;
+                    weight[e] = weight(i);
+                    e++;
+                }
+            }
+        }
+        return new CompactGraph(numVertices, from, to, weight, weighted);
+    }
+}
@@ -0,0 +1,275 @@
+package src.com.karger.io;
+
+import src.com.karger.karger.CompactGraph;
+import src.com.karger.karger.CompactGraphBuilder;
+import src.com.karger.metrics.Metrics;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Loads text graphs of any size by reading them in fixed size chunks and
+ * parsing the bytes in place, appending edges straight into a
+ * {@link CompactGraphBuilder}. Only the edge arrays are ever held in memory,
+ * never the file, a line per string or an adjacency matrix.
+ *
+ * An instance is not thread safe, use one per file being read.
+ */
+public class StreamingGraphReader {
+
+    public enum Format {
+        /**
+         * One edge per line, "a b" or "a b weight", separated by spaces, tabs or
+         * commas. Lines starting with # or % are comments. Every line is an edge,
+         * so undirected edges must be listed once.
+         */
+        EDGE_LIST,
+
+        /**
+         * One vertex per line as written by Graph.saveGraph, "i:j,k" or
+         * "i:j-weight,k-weight". Each edge is listed at both ends and kept once,
+         * from its lower end.
+         */
+        ADJACENCY
+    }
+
+    private static final int CHUNK_BYTES = 4 << 20;
+    /**
+     * Longest mantissa parsed in place: below 2^53 it converts to a double
+     * exactly, so the one division by an exact power of ten rounds only once,
+     * as Double.parseDouble does.
+     */
+    private static final int FAST_DIGITS = 15;
+    private static final double[] POW10 = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15
+    };
+
+    private final Format format;
+    private LoadListener listener;
+
+    // Parsing state of the current file
+    private CompactGraphBuilder builder;
+    private boolean weighted;
+    private byte[] bytes;
+    private int pos;
+    private long line;
+
+    public StreamingGraphReader(Format format) {
+        this.format = format;
+    }
+
+    /**
+     * @param listener notified after every chunk, may be null
+     * @return this reader
+     */
+    public StreamingGraphReader setListener(LoadListener listener) {
+        this.listener = listener;
+        return this;
+    }
+
+    /**
+     * Reads the whole file.
+     * @param path graph file
+     * @return compact graph, weighted if any edge had a weight
+     * @throws IOException if the file can not be read or is malformed
+     */
+    public CompactGraph read(Path path) throws IOException {
+        builder = new CompactGraphBuilder();
+        weighted = false;
+        line = 0;
+        bytes = new byte[CHUNK_BYTES];
+        long start = System.nanoTime();
+        long read = 0;
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long total = channel.size();
+            int carry = 0;
+            while (true) {
+                if (carry == bytes.length) {
+                    // A single line longer than the buffer
+                    bytes = Arrays.copyOf(bytes, bytes.length * 2);
+                }
+                int n = channel.read(ByteBuffer.wrap(bytes, carry, bytes.length - carry));
+                if (n < 0) {
+                    break;
+                }
+                read += n;
+                int limit = carry + n;
+                int complete = limit;
+                while (complete > 0 && bytes[complete - 1] != '\n') {
+                    complete--;
+                }
+                parseLines(complete, path);
+                carry = limit - complete;
+                System.arraycopy(bytes, complete, bytes, 0, carry);
+                report(read, total, start);
+            }
+            // Last line without a line break
+            parseLines(carry, path);
+            report(read, total, start);
+        } finally {
+            bytes = null;
+        }
+
+        builder.setWeighted(weighted);
+        CompactGraph graph = builder.build();
+        builder = null;
+        if (Metrics.isEnabled()) {
+            Metrics.sink().graphLoaded(path.toString(), read, graph.getNumEdges(), System.nanoTime() - start);
+        }
+        return graph;
+    }
+
+    private void report(long read, long total, long start) {
+        if (listener != null) {
+            double seconds = (System.nanoTime() - start) / 1e9;
+            listener.progress(read, total, builder.getNumEdges(), (seconds > 0) ? read / seconds : 0);
+        }
+    }
+
+    private void parseLines(int limit, Path path) throws IOException {
+        pos = 0;
+        while (pos < limit) {
+            int end = pos;
+            while (end < limit && bytes[end] != '\n') {
+                end++;
+            }
+            line++;
+            try {
+                if (format == Format.EDGE_LIST) {
+                    parseEdge(end);
+                } else {
+                    parseAdjacency(end);
+                }
+            } catch (NumberFormatException e) {
+                throw new IOException("Malformed line " + line + " of " + path + ": " + e.getMessage(), e);
+            }
+            pos = end + 1;
+        }
+    }
+
+    private void parseEdge(int end) {
+        skipSeparators(end);
+        if (pos >= end || bytes[pos] == '#' || bytes[pos] == '%') {
+            return;
+        }
+        int a = parseInt(end);
+        skipSeparators(end);
+        int b = parseInt(end);
+        skipSeparators(end);
+        double w = 1;
+        if (pos < end && bytes[pos] != '#' && bytes[pos] != '%') {
+            w = parseDouble(end);
+            weighted = true;
+        }
+        if (a != b) {
+            builder.addEdge(a, b, w);
+        }
+    }
+
+    private void parseAdjacency(int end) {
+        skipBlanks(end);
+        if (pos >= end) {
+            return;
+        }
+        int i = parseInt(end);
+        skipBlanks(end);
+        if (pos >= end || bytes[pos] != ':') {
+            throw new NumberFormatException("expected ':' after vertex " + i);
+        }
+        pos++;
+        builder.ensureVertices(i + 1);
+
+        while (true) {
+            skipBlanks(end);
+            if (pos >= end) {
+                break;
+            }
+            int j = parseInt(end);
+            double w = 1;
+            if (pos < end && bytes[pos] == '-') {
+                pos++;
+                w = parseDouble(end);
+                weighted = true;
+            }
+            builder.ensureVertices(j + 1);
+            if (j > i) {
+                builder.addEdge(i, j, w);
+            }
+            skipBlanks(end);
+            if (pos < end && bytes[pos] == ',') {
+                pos++;
+            }
+        }
+    }
+
+    private void skipBlanks(int end) {
+        while (pos < end && (bytes[pos] == ' ' || bytes[pos] == '\t' || bytes[pos] == '\r')) {
+            pos++;
+        }
+    }
+
+    private void skipSeparators(int end) {
+        while (pos < end && (bytes[pos] == ' ' || bytes[pos] == '\t' || bytes[pos] == '\r' || bytes[pos] == ',')) {
+            pos++;
+        }
+    }
+
+    private int parseInt(int end) {
+        int start = pos;
+        long value = 0;
+        while (pos < end && bytes[pos] >= '0' && bytes[pos] <= '9') {
+            value = value * 10 + (bytes[pos] - '0');
+            if (value > Integer.MAX_VALUE) {
+                throw new NumberFormatException("vertex id out of range");
+            }
+            pos++;
+        }
+        if (pos == start) {
+            throw new NumberFormatException("expected a vertex id");
+        }
+        return (int) value;
+    }
+
+    /*
+     * Plain decimals of up to FAST_DIGITS digits are parsed in place, anything
+     * else (exponents, long mantissas) goes through Double.parseDouble.
+     */
+    private double parseDouble(int end) {
+        int start = pos;
+        long mantissa = 0;
+        int digits = 0;
+        int decimals = -1;
+        boolean plain = true;
+        while (pos < end) {
+            byte c = bytes[pos];
+            if (c >= '0' && c <= '9') {
+                mantissa = mantissa * 10 + (c - '0');
+                digits++;
+                if (decimals >= 0) {
+                    decimals++;
+                }
+            } else if (c == '.' && decimals < 0) {
+                decimals = 0;
+            } else if (c == 'e' || c == 'E' || c == '+' || c == '-' || c == '.') {
+                plain = false;
+            } else {
+                break;
+            }
+            pos++;
+        }
+        if (pos == start) {
+            throw new NumberFormatException("expected a weight");
+        }
+        if (plain && digits > 0 && digits <= FAST_DIGITS && decimals < POW10.length) {
+            return (decimals <= 0) ? mantissa : mantissa / POW10[decimals];
+        }
+        return Double.parseDouble(new String(bytes, start, pos - start, StandardCharsets.ISO_8859_1));
+    }
+}
@@ -0,0 +1,182 @@
+package src.com.karger.karger;
+
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.util.BitSet;
+
+/**
+ * Read only edge list representation of a graph. Vertices are dense ids in
+ * [0, numVertices) and every undirected edge is stored once as
+ * (src[e], dst[e], weight[e]). Instances are never modified after construction,
+ * so a single one can be shared by any number of trials.
+ *
+ * The edges live either in heap arrays or in buffers, for instance the pages
+ * of a graph file mapped by GraphFile, which are then read in place and
+ * never copied.
+ */
+public class CompactGraph {
+
+    /**
+     * Each buffer of a graph over buffers holds 2^CHUNK_SHIFT bytes, all but the last.
+     */
+    public static final int CHUNK_SHIFT = 30;
+    private static final int INT_SHIFT = CHUNK_SHIFT - 2;
+    private static final int DOUBLE_SHIFT = CHUNK_SHIFT - 3;
+
+    private final int numVertices;
+    private final int numEdges;
+    // Heap arrays, null for a graph over buffers
+    private final int[] src;
+    private final int[] dst;
+    private final double[] weight;
+    // Buffers, null for a graph on the heap, and no weights at all for unweighted graphs
+    private final IntBuffer[] srcChunks;
+    private final IntBuffer[] dstChunks;
+    private final DoubleBuffer[] weightChunks;
+    private final boolean weighted;
+
+    /**
+     * @param numVertices number of vertices of the graph
+     * @param src origin vertex of every edge
+     * @param dst destination vertex of every edge
+     * @param weight weight of every edge, 1 for unweighted graphs
+     * @param weighted whether contraction must pick edges proportionally to their weight
+     */
+    public CompactGraph(int numVertices, int[] src, int[] dst, double[] weight, boolean weighted) {
+        if (src.length != dst.length || src.length != weight.length) {
+            throw new IllegalArgumentException("Edge arrays must have the same length: "
+                    + src.length + " " + dst.length + " " + weight.length);
+        }
+        this.numVertices = numVertices;
+        this.numEdges = src.length;
+        this.src = src;
+        this.dst = dst;
+        this.weight = weight;
+        this.srcChunks = null;
+        this.dstChunks = null;
+        this.weightChunks = null;
+        this.weighted = weighted;
+    }
+
+    /*
+     * View of the first numEdges entries of arrays that may be longer, so
+     * DynamicMinCut solves its live edge list without copying it. The arrays
+     * must not change while the view is in use.
+     */
+    CompactGraph(int numVertices, int numEdges, int[] src, int[] dst, double[] weight, boolean weighted) {
+        if (numEdges > src.length || numEdges > dst.length || numEdges > weight.length) {
+            throw new IllegalArgumentException("Edge arrays must hold " + numEdges + " edges: "
+                    + src.length + " " + dst.length + " " + weight.length);
+        }
+        this.numVertices = numVertices;
+        this.numEdges = numEdges;
+        this.src = src;
+        this.dst = dst;
+        this.weight = weight;
+        this.srcChunks = null;
+        this.dstChunks = null;
+        this.weightChunks = null;
+        this.weighted = weighted;
+    }
+
+    private CompactGraph(int numVertices, int numEdges, IntBuffer[] src, IntBuffer[] dst,
+                         DoubleBuffer[] weight, boolean weighted) {
+        this.numVertices = numVertices;
+        this.numEdges = numEdges;
+        this.src = null;
+        this.dst = null;
+        this.weight = null;
+        this.srcChunks = src;
+        this.dstChunks = dst;
+        this.weightChunks = weight;
+        this.weighted = weighted;
+    }
+
+    /**
+     * Graph read in place from buffers, which must not change while it is used.
+     * @param numVertices number of vertices of the graph
+     * @param numEdges number of edges
+     * @param src origin vertex of every edge, in buffers of 2^CHUNK_SHIFT bytes
+     * @param dst destination vertex of every edge, in buffers of 2^CHUNK_SHIFT bytes
+     * @param weight weight of every edge in buffers of 2^CHUNK_SHIFT bytes, null for unweighted graphs
+     * @return graph over the buffers
+     */
+    public static CompactGraph wrap(int numVertices, int numEdges, IntBuffer[] src, IntBuffer[] dst,
+                                    DoubleBuffer[] weight) {
+        return new CompactGraph(numVertices, numEdges, src, dst, weight, weight != null);
+    }
+
+    public int getNumVertices() {
+        return numVertices;
+    }
+
+    public int getNumEdges() {
+        return numEdges;
+    }
+
+    public boolean isWeighted() {
+        return weighted;
+    }
+
+    /**
+     * @return whether the edges are held in heap arrays rather than in buffers
+     */
+    public boolean isOnHeap() {
+        return src != null;
+    }
+
+    public int getSrc(int e) {
+        return (src != null) ? src[e] : srcChunks[e >>> INT_SHIFT].get(e & ((1 << INT_SHIFT) - 1));
+    }
+
+    public int getDst(int e) {
+        return (dst != null) ? dst[e] : dstChunks[e >>> INT_SHIFT].get(e & ((1 << INT_SHIFT) - 1));
+    }
+
+    public double getWeight(int e) {
+        if (weight != null) {
+            return weight[e];
+        }
+        return (weightChunks != null) ? weightChunks[e >>> DOUBLE_SHIFT].get(e & ((1 << DOUBLE_SHIFT) - 1)) : 1;
+    }
+
+    /**
+     * @param side vertices on one side of the cut
+     * @return total weight of the edges with exactly one end in side
+     */
+    public double cutWeight(BitSet side) {
+        double total = 0;
+        for (int e = 0; e < numEdges; e++) {
+            if (side.get(getSrc(e)) != side.get(getDst(e))) {
+                total += getWeight(e);
+            }
+        }
+        return total;
+    }
+
+    /*
+     * Raw arrays for the contraction hot loops, null for a graph over buffers.
+     * They must not be written.
+     */
+    int[] src() {
+        return src;
+    }
+
+    int[] dst() {
+        return dst;
+    }
+
+    /*
+     * Weights for the samplers: the heap array itself, which must not be
+     * written, or the buffered weights copied into scratch of numEdges slots
+     */
+    double[] weights(double[] scratch) {
+        if (weight != null) {
+            return weight;
+        }
+        for (int e = 0; e < numEdges; e++) {
+            scratch[e] = getWeight(e);
+        }
+        return scratch;
+    }
+}
@@ -0,0 +1,94 @@
+package src.com.karger.karger;
+
+import java.util.Arrays;
+
+/**
+ * Grows the edge arrays of a {@link CompactGraph} one edge at a time, for
+ * loaders and generators that do not know the number of edges in advance.
+ */
+public class CompactGraphBuilder {
+
+    private int[] src;
+    private int[] dst;
+    private double[] weight;
+    private int edges;
+    private int vertices;
+    private boolean weighted;
+
+    public CompactGraphBuilder() {
+        this(1024);
+    }
+
+    /**
+     * @param capacity expected number of edges
+     */
+    public CompactGraphBuilder(int capacity) {
+        capacity = Math.max(capacity, 16);
+        src = new int[capacity];
+        dst = new int[capacity];
+        weight = new double[capacity];
+    }
+
+    /**
+     * Adds an unweighted edge.
+     * @param a one end
+     * @param b the other end
+     */
+    public void addEdge(int a, int b) {
+        addEdge(a, b, 1);
+    }
+
+    /**
+     * Adds an edge, the number of vertices grows to hold both ends.
+     * @param a one end
+     * @param b the other end
+     * @param w weight of the edge
+     */
+    public void addEdge(int a, int b, double w) {
+        if (a < 0 || b < 0) {
+            throw new IllegalArgumentException("Vertex ids can not be negative: " + a + " " + b);
+        }
+        if (edges == src.length) {
+            int capacity = (int) Math.min((long) edges * 2, Integer.MAX_VALUE - 8);
+            if (capacity <= edges) {
+                throw new IllegalStateException("Too many edges for a compact graph: " + edges);
+            }
+            src = Arrays.copyOf(src, capacity);
+            dst = Arrays.copyOf(dst, capacity);
+            weight = Arrays.copyOf(weight, capacity);
+        }
+        src[edges] = a;
+        dst[edges] = b;
+        weight[edges] = w;
+        edges++;
+        vertices = Math.max(vertices, Math.max(a, b) + 1);
+    }
+
+    /**
+     * Makes sure the graph has at least n vertices, even if some have no edges.
+     * @param n number of vertices
+     */
+    public void ensureVertices(int n) {
+        vertices = Math.max(vertices, n);
+    }
+
+    public void setWeighted(boolean weighted) {
+        this.weighted = weighted;
+    }
+
+    public int getNumEdges() {
+        return edges;
+    }
+
+    public int getNumVertices() {
+        return vertices;
+    }
+
+    /**
+     * @return graph holding the edges added so far, trimmed to size
+     */
+    public CompactGraph build() {
+        return new CompactGraph(vertices, Arrays.copyOf(src, edges), Arrays.copyOf(dst, edges),
+                Arrays.copyOf(weight, edges), weighted);
+    }
+}
@@ -0,0 +1,599 @@
+package src.com.karger.karger;
+
+import src.com.karger.utils.FenwickTree;
+import src.com.karger.utils.IntDoubleHashMap;
+import src.com.karger.utils.UnionFind;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.function.BooleanSupplier;
+import java.util.random.RandomGenerator;
+
+/**
+ * Karger contraction over a {@link CompactGraph}. Super vertices are tracked
+ * with a union-find and edges are kept in a pool of candidates: an edge is
+ * dropped from the pool as soon as it is picked, either because it gets
+ * contracted or because both ends already are in the same super vertex
+ * (self-loop). Every step removes one edge, so a trial does O(E) steps of
+ * O(alpha(V)) each, and all scratch state comes from a {@link TrialWorkspace},
+ * so sampling and permutation trials allocate nothing. Coalesced trials do:
+ * they build fresh neighbour maps, O(E) of heap per trial.
+ * Weighted graphs keep the candidates in a {@link FenwickTree} instead, so
+ * picking and dropping an edge costs O(log E). See {@link ContractionStrategy}
+ * for the random permutation and coalesced alternatives.
+ *
+ * An instance is not thread safe, but many instances can share the same graph.
+ * Threads running many trials should take theirs from
+ * {@link TrialWorkspace#contraction} instead of building new ones.
+ */
+public class Contraction {
+
+    private final CompactGraph graph;
+    private final ContractionStrategy strategy;
+    private final UnionFind components;
+    // Candidate edges for uniform sampling, or the key heap for random permutations
+    private final int[] pool;
+    private final FenwickTree sampler;
+    private final double[] keys;
+    // Weighted degree of every super vertex for coalesced contractions
+    private final FenwickTree vertexSampler;
+    private final double[] degrees;
+    // Adjacency with parallel edges merged, built by the first coalesced trial
+    private int[] coalescedOffsets;
+    private int[] coalescedNeighbours;
+    private double[] coalescedWeights;
+
+    /**
+     * Contraction steps between two deadline checks, must be a power of 2.
+     */
+    private static final int CHECK_STEPS = 1024;
+
+    // System.nanoTime() at which running contractions give up, 0 for none
+    private long deadline;
+    // Asked at the same checks as the deadline, null for none
+    private BooleanSupplier cancelled;
+    private boolean aborted;
+
+    // Counted by the last contraction for the metrics, see getters
+    private int contractions;
+    private int selfLoops;
+    private int resyncs;
+
+    public Contraction(CompactGraph graph) {
+        this(graph, ContractionStrategy.EDGE_SAMPLING);
+    }
+
+    /**
+     * Contraction with scratch state of its own.
+     * @param graph graph to contract
+     * @param strategy how edges are ordered
+     */
+    public Contraction(CompactGraph graph, ContractionStrategy strategy) {
+        this(graph, strategy, new TrialWorkspace());
+    }
+
+    /*
+     * Scratch arrays may be larger than the graph needs and shared with other
+     * contractions of the same workspace, so sizes always come from the graph.
+     */
+    Contraction(CompactGraph graph, ContractionStrategy strategy, TrialWorkspace workspace) {
+        int m = graph.getNumEdges();
+        this.graph = graph;
+        this.strategy = strategy;
+        this.components = workspace.components(graph.getNumVertices());
+        boolean permutation = strategy == ContractionStrategy.RANDOM_PERMUTATION;
+        boolean coalesced = strategy == ContractionStrategy.COALESCED;
+        boolean sampled = !permutation && !coalesced;
+        this.pool = (permutation || (sampled && !graph.isWeighted())) ? workspace.pool(m) : null;
+        this.sampler = (sampled && graph.isWeighted()) ? workspace.sampler(m) : null;
+        // Weighted sampling over buffers copies the weights there for the Fenwick tree
+        boolean buffered = sampled && graph.isWeighted() && !graph.isOnHeap();
+        this.keys = (permutation || buffered) ? workspace.keys(m) : null;
+        this.vertexSampler = coalesced ? workspace.vertexSampler(graph.getNumVertices()) : null;
+        this.degrees = coalesced ? workspace.degrees(graph.getNumVertices()) : null;
+    }
+
+    /**
+     * Runs one full contraction down to two super vertices.
+     * @param rnd random stream used to pick edges
+     * @return weight of the edges crossing the resulting cut
+     */
+    public double trial(RandomGenerator rnd) {
+        contract(rnd, 2);
+        return aborted ? Double.NaN : cutWeight();
+    }
+
+    /**
+     * Makes running and later contractions give up between steps once the
+     * deadline passes, leaving {@link #isAborted()} set.
+     * @param deadline value of System.nanoTime() to stop at, 0 for no deadline
+     */
+    public void setDeadline(long deadline) {
+        this.deadline = deadline;
+    }
+
+    /**
+     * Makes running and later contractions give up between steps once the
+     * check returns true, like a deadline that passed.
+     * @param cancelled check asked every few thousand steps, null for none
+     */
+    public void setCancellation(BooleanSupplier cancelled) {
+        this.cancelled = cancelled;
+    }
+
+    /**
+     * @return whether the last contraction gave up at the deadline or was cancelled, in which
+     *         case its state is not a valid cut and trial returned NaN
+     */
+    public boolean isAborted() {
+        return aborted;
+    }
+
+    /**
+     * @return super vertices merged by the last contraction
+     */
+    public int getContractions() {
+        return contractions;
+    }
+
+    /**
+     * @return edges the last contraction picked and dropped as self-loops
+     */
+    public int getSelfLoops() {
+        return selfLoops;
+    }
+
+    /**
+     * @return edges the last contraction drew from its sampler or permutation,
+     *         including draws retried after the Fenwick sums were resynced
+     */
+    public long getSamples() {
+        return (long) contractions + selfLoops + resyncs;
+    }
+
+    private boolean expired(int step) {
+        if ((step & (CHECK_STEPS - 1)) != 0 || (deadline == 0 && cancelled == null)) {
+            return false;
+        }
+        aborted = (deadline != 0 && System.nanoTime() - deadline >= 0)
+                || (cancelled != null && cancelled.getAsBoolean());
+        return aborted;
+    }
+
+    /**
+     * Contracts random edges until only the given number of super vertices is left,
+     * or no edge joins two different super vertices.
+     * @param rnd random stream used to pick edges
+     * @param target number of super vertices to stop at
+     * @return number of super vertices left
+     */
+    public int contract(RandomGenerator rnd, int target) {
+        components.reset(graph.getNumVertices());
+        aborted = false;
+        resyncs = 0;
+        int vertices;
+        if (strategy == ContractionStrategy.RANDOM_PERMUTATION) {
+            vertices = contractPermutation(rnd, target);
+        } else if (strategy == ContractionStrategy.COALESCED) {
+            vertices = contractCoalesced(rnd, target);
+        } else {
+            vertices = graph.isWeighted() ? contractWeighted(rnd, target) : contractUniform(rnd, target);
+        }
+        contractions = graph.getNumVertices() - vertices;
+        return vertices;
+    }
+
+    private int contractUniform(RandomGenerator rnd, int target) {
+        int[] src = graph.src();
+        int[] dst = graph.dst();
+
+        int live = graph.getNumEdges();
+        for (int i = 0; i < live; i++) {
+            pool[i] = i;
+        }
+
+        int vertices = graph.getNumVertices();
+        int loops = 0;
+        for (int step = 1; vertices > target && live > 0 && !expired(step); step++) {
+            int k = rnd.nextInt(live);
+            int e = pool[k];
+            // Either it is contracted now or it already was a self-loop, it is never needed again
+            pool[k] = pool[--live];
+            if (union(src, dst, e)) {
+                vertices--;
+            } else {
+                loops++;
+            }
+        }
+        selfLoops = loops;
+        return vertices;
+    }
+
+    /*
+     * Edges are picked proportionally to their weight through the Fenwick tree, and
+     * their weight drops to 0 once picked, so self-loops leave the sampler in O(log E).
+     */
+    private int contractWeighted(RandomGenerator rnd, int target) {
+        int[] src = graph.src();
+        int[] dst = graph.dst();
+
+        sampler.resize(graph.getNumEdges());
+        sampler.build(graph.weights(keys));
+        int vertices = graph.getNumVertices();
+        int loops = 0;
+        for (int step = 1; vertices > target && !expired(step); step++) {
+            double total = sampler.total();
+            if (!(total > 0)) {
+                break;
+            }
+            int e = sampler.find(rnd.nextDouble() * total);
+            if (sampler.get(e) <= 0) {
+                // Rounding from the updates led to a removed edge, resync the sums
+                sampler.rebuild();
+                resyncs++;
+                continue;
+            }
+            sampler.set(e, 0);
+            if (union(src, dst, e)) {
+                vertices--;
+            } else {
+                loops++;
+            }
+        }
+        selfLoops = loops;
+
+        // Only edges of weight 0 can still join super vertices, any of them is as good
+        for (int e = 0; e < graph.getNumEdges() && vertices > target && !aborted; e++) {
+            if (components.union(graph.getSrc(e), graph.getDst(e))) {
+                vertices--;
+            }
+        }
+        return vertices;
+    }
+
+    /*
+     * Every edge gets its key once: uniform, or exponential with rate equal to the
+     * weight so lighter edges tend to come later. The keys are heapified in O(E)
+     * and popped in order until enough super vertices are left, so a trial costs
+     * O(E + k log E) for the k edges popped instead of a full sort.
+     */
+    private int contractPermutation(RandomGenerator rnd, int target) {
+        int[] src = graph.src();
+        int[] dst = graph.dst();
+
+        int size = graph.getNumEdges();
+        for (int e = 0; e < size; e++) {
+            keys[e] = graph.isWeighted() ? -Math.log(1.0 - rnd.nextDouble()) / graph.getWeight(e) : rnd.nextDouble();
+            pool[e] = e;
+        }
+        for (int i = (size >>> 1) - 1; i >= 0; i--) {
+            siftDown(i, size);
+        }
+
+        int vertices = graph.getNumVertices();
+        int loops = 0;
+        for (int step = 1; vertices > target && size > 0 && !expired(step); step++) {
+            int e = pool[0];
+            pool[0] = pool[--size];
+            siftDown(0, size);
+            if (union(src, dst, e)) {
+                vertices--;
+            } else {
+                loops++;
+            }
+        }
+        selfLoops = loops;
+        return vertices;
+    }
+
+    /*
+     * Neighbour maps hold one entry per adjacent super vertex with the total weight
+     * between them, keyed by the vertex owning the other map. A super vertex u is
+     * drawn by weighted degree and a neighbour v of it by weight, so the pair is
+     * drawn with probability 2w(u, v) / 2W, exactly as weighted edge sampling.
+     * The maps are filled for every trial from the distinct pairs of the graph,
+     * and shrink as it goes.
+     */
+    private int contractCoalesced(RandomGenerator rnd, int target) {
+        int n = graph.getNumVertices();
+        if (coalescedOffsets == null) {
+            coalesce();
+        }
+
+        IntDoubleHashMap[] neighbours = new IntDoubleHashMap[n];
+        long pairs = 0;
+        for (int v = 0; v < n; v++) {
+            IntDoubleHashMap map = new IntDoubleHashMap(coalescedOffsets[v + 1] - coalescedOffsets[v]);
+            double degree = 0;
+            for (int i = coalescedOffsets[v]; i < coalescedOffsets[v + 1]; i++) {
+                map.add(coalescedNeighbours[i], coalescedWeights[i]);
+                degree += coalescedWeights[i];
+            }
+            neighbours[v] = map;
+            degrees[v] = degree;
+            pairs += map.size();
+        }
+        pairs /= 2;
+        vertexSampler.build(degrees);
+
+        int vertices = n;
+        for (int step = 1; vertices > target && pairs > 0 && !expired(step); step++) {
+            double total = vertexSampler.total();
+            int u;
+            int v;
+            if (total > 0) {
+                u = vertexSampler.find(rnd.nextDouble() * total);
+                if (neighbours[u] == null || neighbours[u].isEmpty()) {
+                    // Rounding left weight on a vertex without neighbours
+                    vertexSampler.set(u, 0);
+                    resyncs++;
+                    continue;
+                }
+                v = pickNeighbour(neighbours[u], rnd.nextDouble() * vertexSampler.get(u));
+            } else {
+                // Only edges of weight 0 are left, any of them is as good
+                u = 0;
+                while (neighbours[u] == null || neighbours[u].isEmpty()) {
+                    u++;
+                }
+                v = pickNeighbour(neighbours[u], 0);
+            }
+
+            // Fold the smaller map into the larger, the pair itself disappears
+            int large = (neighbours[u].size() >= neighbours[v].size()) ? u : v;
+            int small = (large == u) ? v : u;
+            IntDoubleHashMap into = neighbours[large];
+            IntDoubleHashMap from = neighbours[small];
+            double joined = into.remove(small);
+            pairs--;
+            for (int slot = 0; slot < from.capacity(); slot++) {
+                int x = from.keyAt(slot);
+                if (x < 0 || x == large) {
+                    continue;
+                }
+                double w = from.valueAt(slot);
+                neighbours[x].remove(small);
+                neighbours[x].add(large, w);
+                if (!into.add(x, w)) {
+                    // x was a neighbour of both, its two edges are now parallel
+                    pairs--;
+                }
+            }
+            neighbours[small] = null;
+            vertexSampler.set(large, Math.max(0, vertexSampler.get(large) + vertexSampler.get(small) - 2 * joined));
+            vertexSampler.set(small, 0);
+            components.union(large, small);
+            vertices--;
+        }
+        selfLoops = 0;
+        return vertices;
+    }
+
+    /*
+     * Adjacency of the graph with parallel edges merged and self-loops dropped,
+     * built once so trials start from the distinct pairs only
+     */
+    private void coalesce() {
+        int n = graph.getNumVertices();
+        int m = graph.getNumEdges();
+
+        int[] offsets = new int[n + 1];
+        for (int e = 0; e < m; e++) {
+            int a = graph.getSrc(e);
+            int b = graph.getDst(e);
+            if (a != b) {
+                offsets[a + 1]++;
+                offsets[b + 1]++;
+            }
+        }
+        for (int v = 0; v < n; v++) {
+            offsets[v + 1] += offsets[v];
+        }
+        int[] fill = Arrays.copyOf(offsets, n);
+        int[] adjacent = new int[offsets[n]];
+        double[] adjacentWeight = new double[offsets[n]];
+        for (int e = 0; e < m; e++) {
+            int a = graph.getSrc(e);
+            int b = graph.getDst(e);
+            if (a != b) {
+                adjacent[fill[a]] = b;
+                adjacentWeight[fill[a]++] = graph.getWeight(e);
+                adjacent[fill[b]] = a;
+                adjacentWeight[fill[b]++] = graph.getWeight(e);
+            }
+        }
+
+        // Merge repeated neighbours of every vertex, last remembers where each one went
+        int[] last = new int[n];
+        Arrays.fill(last, -1);
+        coalescedOffsets = new int[n + 1];
+        int size = 0;
+        for (int v = 0; v < n; v++) {
+            int start = size;
+            for (int i = offsets[v]; i < offsets[v + 1]; i++) {
+                int x = adjacent[i];
+                if (last[x] >= start) {
+                    adjacentWeight[last[x]] += adjacentWeight[i];
+                } else {
+                    last[x] = size;
+                    adjacent[size] = x;
+                    adjacentWeight[size++] = adjacentWeight[i];
+                }
+            }
+            coalescedOffsets[v + 1] = size;
+        }
+        coalescedNeighbours = Arrays.copyOf(adjacent, size);
+        coalescedWeights = Arrays.copyOf(adjacentWeight, size);
+    }
+
+    /*
+     * First neighbour whose running weight passes the target, the last one if
+     * rounding keeps the target out of reach
+     */
+    private static int pickNeighbour(IntDoubleHashMap map, double target) {
+        int last = -1;
+        for (int slot = 0; slot < map.capacity(); slot++) {
+            int x = map.keyAt(slot);
+            if (x < 0) {
+                continue;
+            }
+            last = x;
+            target -= map.valueAt(slot);
+            if (target < 0) {
+                return x;
+            }
+        }
+        return last;
+    }
+
+    /*
+     * Joins the ends of edge e, read from the heap arrays when the graph has them
+     * so the hot loops keep plain array loads, from the graph's buffers otherwise
+     */
+    private boolean union(int[] src, int[] dst, int e) {
+        return (src != null) ? components.union(src[e], dst[e]) : components.union(graph.getSrc(e), graph.getDst(e));
+    }
+
+    private void siftDown(int i, int size) {
+        int e = pool[i];
+        double key = keys[e];
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && keys[pool[child + 1]] < keys[pool[child]]) {
+                child++;
+            }
+            if (keys[pool[child]] >= key) {
+                break;
+            }
+            pool[i] = pool[child];
+            i = child;
+        }
+        pool[i] = e;
+    }
+
+    /**
+     * @return weight of the edges whose ends are in different super vertices
+     */
+    public double cutWeight() {
+        int[] src = graph.src();
+        int[] dst = graph.dst();
+        double cut = 0;
+        for (int e = 0; e < graph.getNumEdges(); e++) {
+            boolean crossing = (src != null) ? !components.connected(src[e], dst[e])
+                                             : !components.connected(graph.getSrc(e), graph.getDst(e));
+            if (crossing) {
+                cut += graph.getWeight(e);
+            }
+        }
+        return cut;
+    }
+
+    /**
+     * Super vertex of v after the last trial.
+     * @param v original vertex id
+     * @return representative id of its super vertex
+     */
+    public int superVertex(int v) {
+        return components.find(v);
+    }
+
+    /**
+     * @return vertices on the same side as vertex 0 after the last trial
+     */
+    public BitSet side() {
+        int n = graph.getNumVertices();
+        BitSet side = new BitSet(n);
+        if (n == 0) {
+            return side;
+        }
+        int root = components.find(0);
+        for (int v = 0; v < n; v++) {
+            if (components.find(v) == root) {
+                side.set(v);
+            }
+        }
+        return side;
+    }
+
+    /**
+     * Builds a snapshot of the contracted graph left by the last call to
+     * {@link #contract}, with super vertices renumbered densely and self-loops dropped.
+     * Parallel edges are merged into one edge carrying their total weight, so the
+     * snapshot is always sampled by weight and keeps the same cut probabilities.
+     * @param label filled with the new id of every vertex of the current graph
+     * @return contracted graph
+     */
+    public CompactGraph snapshot(int[] label) {
+        int n = graph.getNumVertices();
+
+        // Dense ids for the roots, then for every vertex through its root
+        Arrays.fill(label, 0, n, -1);
+        int vertices = 0;
+        for (int v = 0; v < n; v++) {
+            int root = components.find(v);
+            if (label[root] == -1) {
+                label[root] = vertices++;
+            }
+        }
+        for (int v = 0; v < n; v++) {
+            label[v] = label[components.find(v)];
+        }
+
+        // Bucket the surviving edges by their lower end
+        int[] bucket = new int[vertices + 1];
+        int edges = 0;
+        for (int e = 0; e < graph.getNumEdges(); e++) {
+            int a = label[graph.getSrc(e)];
+            int b = label[graph.getDst(e)];
+            if (a != b) {
+                bucket[Math.min(a, b) + 1]++;
+                edges++;
+            }
+        }
+        for (int v = 0; v < vertices; v++) {
+            bucket[v + 1] += bucket[v];
+        }
+        int[] order = new int[edges];
+        for (int e = 0; e < graph.getNumEdges(); e++) {
+            int a = label[graph.getSrc(e)];
+            int b = label[graph.getDst(e)];
+            if (a != b) {
+                order[bucket[Math.min(a, b)]++] = e;
+            }
+        }
+
+        // Walk each bucket merging parallel edges, slot remembers where each upper end went
+        int[] owner = new int[vertices];
+        int[] slot = new int[vertices];
+        Arrays.fill(owner, -1);
+        int[] newSrc = new int[edges];
+        int[] newDst = new int[edges];
+        double[] newWeight = new double[edges];
+        int merged = 0;
+        for (int e : order) {
+            int a = Math.min(label[graph.getSrc(e)], label[graph.getDst(e)]);
+            int b = Math.max(label[graph.getSrc(e)], label[graph.getDst(e)]);
+            if (owner[b] != a) {
+                owner[b] = a;
+                slot[b] = merged;
+                newSrc[merged] = a;
+                newDst[merged] = b;
+                merged++;
+            }
+            newWeight[slot[b]] += graph.getWeight(e);
+        }
+        return new CompactGraph(vertices, Arrays.copyOf(newSrc, merged), Arrays.copyOf(newDst, merged),
+                Arrays.copyOf(newWeight, merged), true);
+    }
+
+    public CompactGraph getGraph() {
+        return graph;
+    }
+
+    public ContractionStrategy getStrategy() {
+        return strategy;
+    }
+}
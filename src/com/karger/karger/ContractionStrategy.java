@@ -0,0 +1,34 @@
+package src.com.karger.karger;
+
+/**
+ * How a {@link Contraction} chooses the order in which edges are contracted.
+ * All of them give every cut the same probability of surviving a trial.
+ */
+public enum ContractionStrategy {
+
+    /**
+     * Picks one random edge per step, uniformly or proportionally to its weight,
+     * and drops it afterwards.
+     */
+    EDGE_SAMPLING,
+
+    /**
+     * Gives every edge a random key once per trial, uniform or exponential with
+     * rate equal to its weight, and contracts edges in key order skipping
+     * self-loops, like Kruskal's algorithm. Keys are kept in a heap so only the
+     * edges actually contracted or skipped are ever ordered.
+     */
+    RANDOM_PERMUTATION,
+
+    /**
+     * Keeps one edge per pair of super vertices, carrying the total weight (or
+     * multiplicity) of the parallel edges it stands for, in a primitive hash
+     * map of neighbours per super vertex. A super vertex is picked by weighted
+     * degree and then a neighbour by weight, which is exactly weighted edge
+     * sampling, and merging two super vertices folds the smaller map into the
+     * larger. Self-loops never exist, so a trial takes exactly n - 2 steps, and
+     * the working set shrinks as the graph gets contracted. Unlike the other
+     * strategies, every trial allocates its maps.
+     */
+    COALESCED
+}
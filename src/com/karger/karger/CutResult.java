@@ -0,0 +1,130 @@
+package src.com.karger.karger;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Best cut found over a set of trials.
+ */
+public class CutResult {
+
+    private final double weight;
+    private final BitSet side;
+    private final long hits;
+    private final long trials;
+    private final long trial;
+
+    /**
+     * @param weight weight of the edges crossing the cut
+     * @param side vertices on the same side of the cut as vertex 0
+     * @param hits number of trials that found a cut of this weight
+     * @param trials number of trials run
+     */
+    public CutResult(double weight, BitSet side, long hits, long trials) {
+        this(weight, side, hits, trials, -1);
+    }
+
+    /**
+     * @param weight weight of the edges crossing the cut
+     * @param side vertices on the same side of the cut as vertex 0
+     * @param hits number of trials that found a cut of this weight
+     * @param trials number of trials run
+     * @param trial number of the first trial that found this cut, -1 if unknown
+     */
+    public CutResult(double weight, BitSet side, long hits, long trials, long trial) {
+        this.weight = weight;
+        this.side = side;
+        this.hits = hits;
+        this.trials = trials;
+        this.trial = trial;
+    }
+
+    /**
+     * Result of a set of trials that found nothing yet.
+     */
+    static CutResult empty() {
+        return new CutResult(Double.POSITIVE_INFINITY, new BitSet(), 0, 0);
+    }
+
+    /**
+     * Combines the results of two disjoint sets of trials, keeping the lighter cut.
+     * Ties keep the partition of the lowest numbered trial, so the result of a
+     * seeded run does not depend on the order the trials finished in.
+     * @param other result of the other trials
+     * @return combined result
+     */
+    public CutResult reduce(CutResult other) {
+        int cmp = Double.compare(weight, other.weight);
+        long total = trials + other.trials;
+        if (cmp < 0) {
+            return new CutResult(weight, side, hits, total, trial);
+        } else if (cmp > 0) {
+            return new CutResult(other.weight, other.side, other.hits, total, other.trial);
+        } else if (other.trial >= 0 && (trial < 0 || other.trial < trial)) {
+            return new CutResult(weight, other.side, hits + other.hits, total, other.trial);
+        } else {
+            return new CutResult(weight, side, hits + other.hits, total, trial);
+        }
+    }
+
+    public double getWeight() {
+        return weight;
+    }
+
+    /**
+     * @return vertices on the same side of the cut as vertex 0, which for a
+     *         {@link Graph} are product ids
+     */
+    public BitSet getSide() {
+        return side;
+    }
+
+    /**
+     * @param numVertices number of vertices of the graph the cut was found on
+     * @return vertices on the side without vertex 0
+     */
+    public BitSet getOtherSide(int numVertices) {
+        BitSet other = (BitSet) side.clone();
+        other.flip(0, numVertices);
+        return other;
+    }
+
+    /**
+     * Ids of the edges with one end on each side, in one pass over the edges.
+     * Trials never track them, so only the final cut pays for it.
+     * @param graph graph the cut was found on
+     * @return crossing edges in increasing order
+     */
+    public int[] getCrossingEdges(CompactGraph graph) {
+        int[] crossing = new int[16];
+        int count = 0;
+        for (int e = 0; e < graph.getNumEdges(); e++) {
+            if (side.get(graph.getSrc(e)) != side.get(graph.getDst(e))) {
+                if (count == crossing.length) {
+                    crossing = Arrays.copyOf(crossing, count * 2);
+                }
+                crossing[count++] = e;
+            }
+        }
+        return Arrays.copyOf(crossing, count);
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getTrials() {
+        return trials;
+    }
+
+    /**
+     * @return number of the first trial that found this cut, -1 if unknown
+     */
+    public long getTrial() {
+        return trial;
+    }
+
+    public String toString() {
+        return "Cut: " + weight + ", Hits: " + hits + "/" + trials + ", Trial: " + trial + ", Side: " + side.cardinality() + " vertices";
+    }
+}
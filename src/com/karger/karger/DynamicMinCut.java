@@ -0,0 +1,466 @@
+package src.com.karger.karger;
+
+import src.com.karger.utils.LongIntHashMap;
+import src.com.karger.utils.RandomGenerator;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Minimum cut of a graph that keeps changing through edge insertions,
+ * deletions and weight updates, without recomputing it from scratch after
+ * every change.
+ *
+ * The edges live in a mutable edge list with one entry per vertex pair, found
+ * through a hash of the pair. Besides the best known cut it keeps a lower bound
+ * on the weight of every cut, and both are updated in O(1) per change:
+ * <ul>
+ *   <li>the weight of the best cut moves with the edges crossing it;</li>
+ *   <li>removing weight w lowers every cut by at most w, so the lower bound
+ *       drops by w, while adding weight never lowers it.</li>
+ * </ul>
+ * While the best cut is not heavier than the lower bound it is still a minimum
+ * cut, and {@link #minCut()} returns it without any work. Otherwise the
+ * singleton cuts are checked in O(V), and only if they do not close the gap
+ * the current graph is solved again, over the live edge list without copying
+ * it, stopping Karger's trials as soon as they reach the lower bound.
+ * Insertions that do not cross the kept cut leave it certified and never need
+ * a new solve. Insertions across it make it heavier while the bound stays, so
+ * another cut may now be lighter and the next {@link #minCut()} looks again.
+ * A {@link Batch} applies many changes at once, checked before any is applied.
+ *
+ * The lower bound is exact when it comes from Stoer-Wagner, and as likely as
+ * the randomized solvers' answer otherwise, see {@link #isExact()}.
+ */
+public class DynamicMinCut {
+
+    /**
+     * Relative slack when comparing the best cut against the lower bound,
+     * sums of the same weights in different order may differ in the last bits.
+     */
+    private static final double EPSILON = 1e-9;
+
+    private int numVertices;
+    private int numEdges;
+    private int[] src;
+    private int[] dst;
+    private double[] weight;
+    private boolean weighted;
+    // Edge of every vertex pair, keyed by (min << 32) | max
+    private final LongIntHashMap index;
+    private double[] degree;
+
+    private long seed;
+    private int solves;
+    private long changes;
+
+    private BitSet side;
+    private double best;
+    private double lowerBound;
+    private boolean exact;
+    private CutResult last;
+
+    /**
+     * Copies the graph, merging parallel edges into one edge per vertex pair.
+     * The first call to {@link #minCut()} solves it.
+     * @param graph initial graph
+     */
+    public DynamicMinCut(CompactGraph graph) {
+        this.numVertices = graph.getNumVertices();
+        int m = graph.getNumEdges();
+        this.src = new int[Math.max(m, 16)];
+        this.dst = new int[src.length];
+        this.weight = new double[src.length];
+        this.index = new LongIntHashMap(src.length);
+        this.degree = new double[Math.max(numVertices, 16)];
+        this.weighted = graph.isWeighted();
+        this.seed = RandomGenerator.newSeed();
+        for (int e = 0; e < m; e++) {
+            add(graph.getSrc(e), graph.getDst(e), graph.getWeight(e));
+        }
+        this.side = new BitSet();
+        this.best = Double.POSITIVE_INFINITY;
+        this.lowerBound = Double.NEGATIVE_INFINITY;
+    }
+
+    /**
+     * @param seed seed of the randomized solves, each one uses its own stream of it
+     * @return this instance
+     */
+    public DynamicMinCut setSeed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    /**
+     * Adds weight to the edge between two vertices, creating it if needed.
+     * Ids past the last vertex add vertices to the graph.
+     * @param u one end
+     * @param v other end
+     * @param w positive weight to add
+     */
+    public void insert(int u, int v, double w) {
+        if (u == v) {
+            return;
+        }
+        if (!(w > 0)) {
+            throw new IllegalArgumentException("Inserted weight must be positive: " + w);
+        }
+        grow(u, v, w);
+        add(u, v, w);
+        if (crosses(u, v)) {
+            best += w;
+        }
+        changes++;
+    }
+
+    /**
+     * Removes the edge between two vertices, if any.
+     * @param u one end
+     * @param v other end
+     * @return weight of the removed edge, 0 if there was none
+     */
+    public double delete(int u, int v) {
+        int e = (u == v) ? -1 : index.get(key(u, v));
+        if (e < 0) {
+            return 0;
+        }
+        double w = weight[e];
+        removeEdge(e);
+        if (crosses(u, v)) {
+            best -= w;
+        }
+        lowerBound -= w;
+        changes++;
+        return w;
+    }
+
+    /**
+     * Sets the weight of the edge between two vertices, creating or deleting it as needed.
+     * @param u one end
+     * @param v other end
+     * @param w new weight, 0 to delete the edge
+     */
+    public void setWeight(int u, int v, double w) {
+        if (w < 0) {
+            throw new IllegalArgumentException("Weight must not be negative: " + w);
+        }
+        if (u == v) {
+            return;
+        }
+        int e = (Math.max(u, v) < numVertices) ? index.get(key(u, v)) : -1;
+        if (w == 0) {
+            delete(u, v);
+        } else if (e < 0) {
+            insert(u, v, w);
+        } else {
+            double delta = w - weight[e];
+            weight[e] = w;
+            degree[u] += delta;
+            degree[v] += delta;
+            weighted = true;
+            if (crosses(u, v)) {
+                best += delta;
+            }
+            if (delta < 0) {
+                lowerBound += delta;
+            }
+            changes++;
+        }
+    }
+
+    /**
+     * Applies every change of the batch in order. The weights are all checked
+     * first, so an invalid batch changes nothing. The cut is only looked at
+     * again by the next {@link #minCut()}, once for the whole batch.
+     * @param batch changes to apply
+     * @return this instance
+     */
+    public DynamicMinCut apply(Batch batch) {
+        for (int i = 0; i < batch.size; i++) {
+            double w = batch.weights[i];
+            if (batch.ops[i] == Batch.INSERT && !(w > 0) && batch.us[i] != batch.vs[i]) {
+                throw new IllegalArgumentException("Inserted weight must be positive: " + w + " at change " + i);
+            }
+            if (batch.ops[i] == Batch.SET_WEIGHT && w < 0) {
+                throw new IllegalArgumentException("Weight must not be negative: " + w + " at change " + i);
+            }
+        }
+        for (int i = 0; i < batch.size; i++) {
+            int u = batch.us[i];
+            int v = batch.vs[i];
+            if (batch.ops[i] == Batch.INSERT) {
+                insert(u, v, batch.weights[i]);
+            } else if (batch.ops[i] == Batch.DELETE) {
+                delete(u, v);
+            } else {
+                setWeight(u, v, batch.weights[i]);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Minimum cut of the current graph. Returns the kept cut as it is while the
+     * lower bound certifies it, otherwise tries the singleton cuts and only then
+     * solves the graph again.
+     * @return lightest cut known for the current graph
+     */
+    public CutResult minCut() {
+        if (!isCertified()) {
+            singletons();
+        }
+        if (!isCertified()) {
+            solve();
+        }
+        return new CutResult(best, (BitSet) side.clone(), last.getHits(), last.getTrials(), last.getTrial());
+    }
+
+    /**
+     * @return whether the kept cut is known to be a minimum cut of the current graph
+     */
+    public boolean isCertified() {
+        return last != null && best <= lowerBound + EPSILON * Math.max(1, Math.abs(best));
+    }
+
+    /**
+     * @return whether the lower bound was proved by an exact solver, rather
+     *         than being the answer of a randomized one
+     */
+    public boolean isExact() {
+        return exact;
+    }
+
+    /**
+     * @return weight no cut of the current graph is lighter than
+     */
+    public double getLowerBound() {
+        return lowerBound;
+    }
+
+    /**
+     * @return number of times the graph was solved from scratch
+     */
+    public int getSolves() {
+        return solves;
+    }
+
+    /**
+     * @return number of changes applied so far
+     */
+    public long getChanges() {
+        return changes;
+    }
+
+    public int getNumVertices() {
+        return numVertices;
+    }
+
+    public int getNumEdges() {
+        return numEdges;
+    }
+
+    /**
+     * @return copy of the current graph, one edge per vertex pair
+     */
+    public CompactGraph getGraph() {
+        return new CompactGraph(numVertices, Arrays.copyOf(src, numEdges), Arrays.copyOf(dst, numEdges),
+                Arrays.copyOf(weight, numEdges), weighted);
+    }
+
+    /* Takes the lightest singleton cut if it beats the kept one */
+    private void singletons() {
+        int lightest = -1;
+        for (int v = 0; v < numVertices; v++) {
+            if (degree[v] < best && (lightest < 0 || degree[v] < degree[lightest])) {
+                lightest = v;
+            }
+        }
+        if (lightest < 0 || numVertices < 2) {
+            return;
+        }
+        best = degree[lightest];
+        side = new BitSet(numVertices);
+        if (lightest == 0) {
+            side.set(0);
+        } else {
+            side.set(0, numVertices);
+            side.clear(lightest);
+        }
+    }
+
+    /*
+     * Solves the current graph, stopping randomized trials once they reach the
+     * lower bound. The solvers read the live arrays, nothing changes them meanwhile
+     */
+    private void solve() {
+        CompactGraph graph = new CompactGraph(numVertices, numEdges, src, dst, weight, weighted);
+        MinCutSolver solver = MinCutSolvers.choose(graph, RandomGenerator.streamSeed(seed, solves++));
+        CutResult result;
+        boolean reached = false;
+        if (solver instanceof KargerRunner) {
+            TrialScheduler scheduler = new TrialScheduler((KargerRunner) solver).setLowerBound(lowerBound);
+            result = scheduler.run();
+            reached = scheduler.getStop() == TrialScheduler.Stop.LOWER_BOUND;
+        } else {
+            result = solver.minCut();
+        }
+
+        if (result.getWeight() < best) {
+            best = result.getWeight();
+            side = result.getSide();
+        }
+        if (!reached) {
+            // The solver's answer becomes the bound, the kept cut may still beat a randomized one
+            lowerBound = best;
+            exact = solver instanceof StoerWagner;
+        }
+        last = result;
+    }
+
+    /* Whether an edge between the two vertices crosses the kept cut */
+    private boolean crosses(int u, int v) {
+        return side.get(u) != side.get(v);
+    }
+
+    /*
+     * Adds the vertices up to the largest end of a new edge. A new vertex hanging
+     * from an existing one by weight w makes cuts of at least min(bound, w), any
+     * other new vertex starts a new component.
+     */
+    private void grow(int u, int v, double w) {
+        int top = Math.max(u, v);
+        if (top < numVertices) {
+            return;
+        }
+        if (top == numVertices && Math.min(u, v) < numVertices) {
+            lowerBound = Math.min(lowerBound, w);
+        } else {
+            lowerBound = Math.min(lowerBound, 0);
+        }
+        numVertices = top + 1;
+        if (numVertices > degree.length) {
+            degree = Arrays.copyOf(degree, Math.max(numVertices, degree.length * 2));
+        }
+    }
+
+    /* Adds weight to the edge of a pair, appending it if the pair has none */
+    private void add(int u, int v, double w) {
+        if (u == v) {
+            return;
+        }
+        long key = key(u, v);
+        int e = index.get(key);
+        if (e >= 0) {
+            weight[e] += w;
+            weighted = true;
+        } else {
+            if (numEdges == src.length) {
+                int capacity = src.length * 2;
+                src = Arrays.copyOf(src, capacity);
+                dst = Arrays.copyOf(dst, capacity);
+                weight = Arrays.copyOf(weight, capacity);
+            }
+            e = numEdges++;
+            src[e] = Math.min(u, v);
+            dst[e] = Math.max(u, v);
+            weight[e] = w;
+            weighted |= w != 1;
+            index.put(key, e);
+        }
+        degree[u] += w;
+        degree[v] += w;
+    }
+
+    /* Removes an edge, moving the last one into its place */
+    private void removeEdge(int e) {
+        degree[src[e]] -= weight[e];
+        degree[dst[e]] -= weight[e];
+        index.remove(key(src[e], dst[e]));
+        int tail = --numEdges;
+        if (e != tail) {
+            src[e] = src[tail];
+            dst[e] = dst[tail];
+            weight[e] = weight[tail];
+            index.put(key(src[e], dst[e]), e);
+        }
+    }
+
+    private static long key(int u, int v) {
+        return ((long) Math.min(u, v) << 32) | Math.max(u, v);
+    }
+
+    /**
+     * Insertions, deletions and weight updates recorded to be applied together
+     * by {@link DynamicMinCut#apply}, in the order they were added. A batch can
+     * be cleared and filled again.
+     */
+    public static class Batch {
+
+        private static final byte INSERT = 0;
+        private static final byte DELETE = 1;
+        private static final byte SET_WEIGHT = 2;
+
+        private byte[] ops = new byte[16];
+        private int[] us = new int[16];
+        private int[] vs = new int[16];
+        private double[] weights = new double[16];
+        private int size;
+
+        /**
+         * @param u one end
+         * @param v other end
+         * @param w positive weight to add, see {@link DynamicMinCut#insert}
+         * @return this batch
+         */
+        public Batch insert(int u, int v, double w) {
+            return add(INSERT, u, v, w);
+        }
+
+        /**
+         * @param u one end
+         * @param v other end
+         * @return this batch
+         */
+        public Batch delete(int u, int v) {
+            return add(DELETE, u, v, 0);
+        }
+
+        /**
+         * @param u one end
+         * @param v other end
+         * @param w new weight, 0 to delete the edge, see {@link DynamicMinCut#setWeight}
+         * @return this batch
+         */
+        public Batch setWeight(int u, int v, double w) {
+            return add(SET_WEIGHT, u, v, w);
+        }
+
+        /**
+         * @return number of changes recorded
+         */
+        public int size() {
+            return size;
+        }
+
+        public void clear() {
+            size = 0;
+        }
+
+        private Batch add(byte op, int u, int v, double w) {
+            if (size == ops.length) {
+                int capacity = ops.length * 2;
+                ops = Arrays.copyOf(ops, capacity);
+                us = Arrays.copyOf(us, capacity);
+                vs = Arrays.copyOf(vs, capacity);
+                weights = Arrays.copyOf(weights, capacity);
+            }
+            ops[size] = op;
+            us[size] = u;
+            vs[size] = v;
+            weights[size] = w;
+            size++;
+            return this;
+        }
+    }
+}
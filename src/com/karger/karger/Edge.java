@@ -1,92 +1,66 @@
 package src.com.karger.karger;
 
-import src.com.karger.utils.Product;
-
-import java.util.ArrayList;
-import java.util.List;
-
 public class Edge {
 
-	private Product first;
-    private Product second;
+	private int first;
+    private int second;
 
     private final double weight;
 
     /**
-     * Array list to save both origin and destination vertices of an edge
-     */
-	private final List<Product> vertices = new ArrayList<>();
-
-    /**
-     * Default edge constructor, first and second are just names
+     * Default edge constructor, first and second are just product ids
      * doesn't set any kind of direction.
-     * @param first Product 1 of the edge
-     * @param second Product 2 of the edge
+     * @param first Product id 1 of the edge
+     * @param second Product id 2 of the edge
      */
-    Edge(Product first, Product second) {
-
-	    if (first == null || second == null) {
-	        throw new NullPointerException("Neither first or second can be null value.");
-        }
-
-		this.first = first;
-		this.second = second;
-
-		vertices.add(first);
-		vertices.add(second);
-
-		weight = 0;
+    Edge(int first, int second) {
+        this(first, second, 0);
 	}
 
     /**
-     * Edge constructor, first and second are just names
+     * Edge constructor, first and second are just product ids
      * doesn't set any kind of direction.
-     * @param first Product 1 of the edge
-     * @param second Product 2 of the edge
+     * @param first Product id 1 of the edge
+     * @param second Product id 2 of the edge
      * @param weight of the edge
      */
-    Edge(Product first, Product second, double weight) {
+    Edge(int first, int second, double weight) {
 
-        if (first == null || second == null) {
-            throw new NullPointerException("Neither first or second can be null value.");
+        if (first < 0 || second < 0) {
+            throw new IllegalArgumentException("Neither first or second can be a negative id.");
         }
 
         this.first = first;
         this.second = second;
 
-        vertices.add(first);
-        vertices.add(second);
-
         this.weight = weight;
     }
 
-	Product getOppositeEnd(Product p) {
-	    if (first.equals(p)) {
+	int getOppositeEnd(int p) {
+	    if (first == p) {
 	        return second;
-        } else if (second.equals(p)) {
+        } else if (second == p) {
 	        return first;
         } else {
-            System.out.println("Edge does not contain specified product: " + this + " " + p);
-            return null;
+            throw new IllegalArgumentException("Edge does not contain specified product: " + this + " " + p);
         }
-	    //else throw new IllegalArgumentException("Edge does not contain specified product: " + this + " " + p);
 	}
 
-    void replaceEndOfEdge(Product oldP, Product newP) {
-        if (first.equals(oldP)) {
+    void replaceEndOfEdge(int oldP, int newP) {
+        if (first == oldP) {
             first = newP;
-        } else if (second.equals(oldP)) {
+        } else if (second == oldP) {
             second = newP;
         } else {
 			throw new IllegalArgumentException("Edge does not contain specified products: " + this + " " + oldP + " " + newP);
 		}
     }
 
-	Product getFirst() {
+	int getFirst() {
 		return first;
 	}
 
-	Product getSecond() {
+	int getSecond() {
 		return second;
 	}
 
@@ -101,14 +75,18 @@ public class Edge {
 
         Edge edge = (Edge) o;
 
-        return (first.equals(edge.first) && second.equals(edge.second)) ||
-               (first.equals(edge.second) && second.equals(edge.first));
+        return (first == edge.first && second == edge.second) ||
+               (first == edge.second && second == edge.first);
     }
 
     @Override
     public int hashCode() {
-        int result = first != null ? first.hashCode() : 0;
-        result = result + (second != null ? second.hashCode() : 0);
-        return result;
+        // Symmetric in the ends, as equals is
+        return 31 * Math.min(first, second) + Math.max(first, second);
+    }
+
+    @Override
+    public String toString() {
+        return first + " - " + second;
     }
-}
\ No newline at end of file
+}
@@ -1,17 +1,28 @@
 package src.com.karger.karger;
 
+import src.com.karger.generator.ErdosRenyiGenerator;
+import src.com.karger.io.GraphFile;
+import src.com.karger.metrics.Metrics;
+import src.com.karger.metrics.MetricsSink;
 import src.com.karger.utils.Product;
+import src.com.karger.utils.ProductCatalog;
 
 import java.io.*;
+import java.nio.file.Paths;
 import java.text.NumberFormat;
 import java.text.ParseException;
 import java.util.*;
 
-public class Graph  {
+public class Graph implements MinCutSolver {
 
-    private static Random rnd;
+    private final SplittableRandom rnd;
     private static final char[] chars = "abcdefghijklmnopqrstuvwxyz".toCharArray();
 
+    /**
+     * Fraction of the pairs of products bought together in a filled graph.
+     */
+    private static final double FILL_DENSITY = 0.75;
+
     // Graph parameters
     private final int numProducts;
     private final boolean debug;
@@ -19,11 +30,28 @@ public class Graph  {
 
     // Data structures
     private final boolean[][] buyTogether;
-    private final Map<Integer, Product> products = new HashMap<>();
-    private final Map<Integer, ArrayList<Product>> vertices;
+    // Vertices are the dense product ids, the metadata is only read to print products
+    private final ProductCatalog catalog;
+    // Edges at each end, so saving and printing walk the edges of a vertex directly
+    private final List<List<Edge>> incident;
     private final List<Edge> edges = new ArrayList<>();
 
     public Graph(int n, boolean debug, boolean weighted) {
+        this(n, debug, weighted, new SplittableRandom());
+    }
+
+    /**
+     * Graph whose random products, edges and contractions are reproducible.
+     * @param n number of products
+     * @param debug print debug messages
+     * @param weighted random weights for the edges
+     * @param seed seed of the random generator of this graph
+     */
+    public Graph(int n, boolean debug, boolean weighted, long seed) {
+        this(n, debug, weighted, new SplittableRandom(seed));
+    }
+
+    private Graph(int n, boolean debug, boolean weighted, SplittableRandom rnd) {
         // Parameters
         numProducts = n;
         this.debug = debug;
@@ -31,9 +59,13 @@ public class Graph  {
 
         // Data structures
         buyTogether = new boolean[n][n];
-        vertices = new HashMap<>();
+        catalog = new ProductCatalog(n);
+        incident = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            incident.add(new ArrayList<>());
+        }
 
-        rnd = new Random();
+        this.rnd = rnd;
     }
     
     public void fill() {
@@ -41,66 +73,35 @@ public class Graph  {
         if (debug) System.out.print("[debug] Initializing random products... ");
         //Initialize random products
         for (int i = 0; i < numProducts; i++) {
-
-            products.put(i, new Product(stringRandom(), rnd.nextInt(10) + 1,
-                    Math.round(rnd.nextDouble() * 100.0)));
-
-            vertices.put(i, new ArrayList<>());
+            String name = stringRandom();
+            int unit = rnd.nextInt(10) + 1;
+            catalog.add(name, unit, Math.round(rnd.nextDouble() * 100.0));
         }
         if (debug) System.out.println("[OK] DONE.");
 
         if (debug) System.out.print("[debug] Matching products randomized, generating edges, filling vertices... ");
 
-        // Force vertices to be at least a percentage connected
-        while (!sparse()) {
-            for (int i = 0; i < numProducts; i++) {
-                for (int j = i; j < numProducts; j++) {
-                    // A product always is bought with itself
-                    if (i == j) {
-                        buyTogether[i][j] = true;
-                    } else {
-                        // If i is bought with j then j is bought with i
-                        buyTogether[i][j] = rnd.nextBoolean() | rnd.nextBoolean();
-                        buyTogether[j][i] = buyTogether[i][j];
-
-                        if (buyTogether[i][j]) {
-                            // Generate edge of the vertices and save in the corresponding structures
-                            Edge edge;
-                            if (weighted) {
-                                double weight = rnd.nextDouble();
-                                NumberFormat nf = NumberFormat.getInstance();
-                                double number = 0;
-                                try {
-                                    number = nf.parse(String.format("%.3f", weight)).doubleValue();
-                                } catch (ParseException e) {
-                                    e.printStackTrace();
-                                }
-                                edge = new Edge(products.get(i), products.get(j), number);
-                            } else {
-                                edge = new Edge(products.get(i), products.get(j));
-                            }
-                            edges.add(edge);
-                            products.get(i).addEdge(edge);
-                            products.get(j).addEdge(edge);
-                        }
-                    }
-                }
-            }
+        // Exactly 3/4 of the pairs are bought together, so the density never has to be checked and retried
+        CompactGraph generated = new ErdosRenyiGenerator(numProducts, FILL_DENSITY, weighted).generate(rnd.nextLong());
+        for (int i = 0; i < numProducts; i++) {
+            // A product always is bought with itself
+            buyTogether[i][i] = true;
         }
-        if (debug) System.out.println("[OK] DONE.");
-    }
-
-    private boolean sparse() {
-        double sparse = ((double) edges.size() * 2.0) / (numProducts * (numProducts - 1));
-        if (Double.compare(sparse, 0.7) >= 0) {
-            return true;
-        } else {
-            edges.clear();
-            for (int i = 0; i < numProducts; i++) {
-                products.get(i).getEdges().clear();
-            }
-            return false;
+        for (int e = 0; e < generated.getNumEdges(); e++) {
+            int i = generated.getSrc(e);
+            int j = generated.getDst(e);
+            // If i is bought with j then j is bought with i
+            buyTogether[i][j] = true;
+            buyTogether[j][i] = true;
+
+            // Weights keep 3 decimals, as saved graphs always had
+            Edge edge = weighted ? new Edge(i, j, Math.round(generated.getWeight(e) * 1000) / 1000.0)
+                                 : new Edge(i, j);
+            edges.add(edge);
+            incident.get(i).add(edge);
+            incident.get(j).add(edge);
         }
+        if (debug) System.out.println("[OK] DONE.");
     }
 
     /*
@@ -116,97 +117,110 @@ public class Graph  {
         return sb.toString();
     }
 
-    private Edge uniformRandomEdge() {
-        double totalWeight = 0;
-        for (Edge edge : edges) {
-            totalWeight += edge.getWeight();
-        }
-        int index = -1;
-        double random = rnd.nextDouble() * totalWeight;
-        for (int i = 0; i < edges.size(); i++) {
-            random -= edges.get(i).getWeight();
-            if (random <= 0) {
-                // We found pounded edge
-                //System.out.println(i);
-                index = i;
-                break;
-            }
+    /**
+     * One Karger trial over a compact snapshot of this graph, run by
+     * {@link Contraction}: O(E log E) for weighted graphs and O(E) otherwise,
+     * rather than a scan of every edge per contraction. The graph itself is
+     * not modified.
+     * @return cut weight, weighted if the graph is, and the product ids on the side of product 0
+     */
+    public CutResult minCutKarger() {
+        if (debug) System.out.println("[debug] Karger's algorithm in progress...");
+        MetricsSink sink = Metrics.sink();
+        long start = (sink != MetricsSink.NONE) ? System.nanoTime() : 0;
+        Contraction contraction = new Contraction(toCompact());
+        double weight = contraction.trial(rnd);
+        if (debug) System.out.println("[OK] DONE, " + contraction.getContractions() + " merges.");
+        if (sink != MetricsSink.NONE) {
+            sink.trial(System.nanoTime() - start, contraction.getContractions(),
+                    contraction.getSelfLoops(), contraction.getSamples());
         }
-        return edges.get(index);
+        return new CutResult(weight, contraction.side(), 1, 1);
     }
 
-    public int minCutKarger() {
-        if (debug) System.out.println("[debug] Karger's algorithm in progress...");
-        while (vertices.size() > 2) {
-            //printGraph();
-            if (debug) System.out.println("[debug] Selecting random edge to be removed");
-            Edge edgeToRemove = (weighted) ? uniformRandomEdge() : getEdge(rnd.nextInt(edges.size()));
-            Product p1 = edgeToRemove.getFirst();
-            Product p2 = edgeToRemove.getOppositeEnd(p1);
-
-            if (debug) System.out.print("[debug] Updating vertices status... ");
-            edges.removeAll(Collections.singleton(edgeToRemove));
-            p1.remove(edgeToRemove);
-            p2.remove(edgeToRemove);
-            if (debug) System.out.println("[OK] DONE.");
-
-            merge(p1, p2);
-        }
+    /**
+     * Minimum cut of a compact snapshot of this graph, with the solver
+     * {@link MinCutSolvers#choose} finds best for its size and density.
+     * The graph itself is not modified.
+     * @return lightest cut found
+     */
+    @Override
+    public CutResult minCut() {
+        if (debug) System.out.println("[debug] Minimum cut in progress...");
+        CutResult result = MinCutSolvers.choose(toCompact(), rnd.nextLong()).minCut();
         if (debug) System.out.println("[OK] DONE.");
-        return edges.size();
+        return result;
     }
 
-    private void merge(Product p1, Product p2) {
-        if (debug) System.out.print("[debug] Merging vertices " + getKeyProduct(p1) + " and " + getKeyProduct(p2) + " ");
-        vertices.get(getKeyProduct(p1)).add(p2);
-        vertices.get(getKeyProduct(p1)).addAll(vertices.get(getKeyProduct(p2)));
-        // Migrate all edges to the combined node
-        Set<Edge> copy = p2.getEdges();
-        for (Iterator<Edge> it = copy.iterator(); it.hasNext(); ) {
-            Edge e = it.next();
-            it.remove();
-            Product p = e.getOppositeEnd(p2);
-            // Remove edge from vertices and from product
-            int count = Collections.frequency(edges, e);
-            edges.removeAll(Collections.singleton(e));
-            p2.remove(e);
-            p.remove(e);
-            // Set new value of edge that no longer exists
-            e.replaceEndOfEdge(p2, p1);
-            // Add modified edge to vertices
-            p1.addEdge(e);
-            p.addEdge(e);
-            for (int i = 0; i < count; i++) {
-                edges.add(e);
-            }
-        }
-
-        vertices.remove(getKeyProduct(p2));
+    /**
+     * Karger-Stein recursive contraction over a compact snapshot of this graph,
+     * repeated enough times to find the minimum cut with high probability.
+     * The graph itself is not modified.
+     * @return best cut found
+     */
+    public CutResult minCutKargerStein() {
+        if (debug) System.out.println("[debug] Karger-Stein algorithm in progress...");
+        CutResult result = new KargerStein(toCompact()).run();
         if (debug) System.out.println("[OK] DONE.");
+        return result;
     }
 
-    private int getKeyProduct(Product p) {
-        for (Map.Entry<Integer, Product> e : products.entrySet()) {
-            if (e.getValue().equals(p)) {
-                return e.getKey();
-            }
-        }
-        return 0;
+    /**
+     * Kernel of a compact snapshot of this graph, see {@link Kernel}. Its
+     * original vertices are the product ids of {@link #getProduct(int)}.
+     * The graph itself is not modified.
+     * @return kernel of the graph
+     */
+    public Kernel kernel() {
+        return Kernel.of(toCompact());
     }
 
-    private int getKeyGraph(ArrayList<Product> p) {
-        for (Map.Entry<Integer, ArrayList<Product>> e : vertices.entrySet()) {
-            if (e.getValue().equals(p)) {
-                return e.getKey();
-            }
+    /**
+     * @param id product id, also its vertex in {@link #toCompact()}
+     * @return product with that id, read from the catalog, null if there is none
+     */
+    public Product getProduct(int id) {
+        return catalog.get(id);
+    }
+
+    /**
+     * @return metadata of every product, by product id
+     */
+    public ProductCatalog getCatalog() {
+        return catalog;
+    }
+
+    /**
+     * @param ids product ids, for instance one side of a {@link CutResult}
+     * @return products with those ids, in increasing id order
+     */
+    public List<Product> getProducts(BitSet ids) {
+        List<Product> list = new ArrayList<>(ids.cardinality());
+        for (int i = ids.nextSetBit(0); i >= 0; i = ids.nextSetBit(i + 1)) {
+            list.add(catalog.get(i));
         }
-        return 0;
+        return list;
     }
 
-    private Edge getEdge(int i) {
-        return ((Edge) edges.toArray()[i]);
+    /**
+     * Exports the current edges of the graph into a compact edge list that
+     * {@link Contraction} can run any number of trials against.
+     * Unweighted edges get weight 1 so the cut weight is the number of crossing edges.
+     * @return compact snapshot of the graph
+     */
+    public CompactGraph toCompact() {
+        int[] src = new int[edges.size()];
+        int[] dst = new int[edges.size()];
+        double[] weight = new double[edges.size()];
+        for (int i = 0; i < edges.size(); i++) {
+            Edge edge = edges.get(i);
+            src[i] = edge.getFirst();
+            dst[i] = edge.getSecond();
+            weight[i] = weighted ? edge.getWeight() : 1;
+        }
+        return new CompactGraph(numProducts, src, dst, weight, weighted);
     }
-    
+
     public void saveGraph(String sFichero) {
         try {
             File file = new File(sFichero);
@@ -228,14 +242,13 @@ public class Graph  {
             BufferedWriter bw = new BufferedWriter(new FileWriter(sFichero));
             StringBuilder line = new StringBuilder();
 
-            for (Map.Entry<Integer, ArrayList<Product>> entry : vertices.entrySet()) {
-                int i = entry.getKey();
+            for (int i = 0; i < numProducts; i++) {
                 bw.write(i + ":");
 
-                for (int j = 0; j < products.get(i).getEdges().size(); j++) {
-                    line.append(getKeyProduct(products.get(i).getEdge(j).getOppositeEnd(products.get(i))));
+                for (Edge edge : incident.get(i)) {
+                    line.append(edge.getOppositeEnd(i));
                     if (weighted) {
-                        line.append("-").append(products.get(i).getEdge(j).getWeight());
+                        line.append("-").append(edge.getWeight());
                     }
                     line.append(",");
                 }
@@ -254,6 +267,21 @@ public class Graph  {
 		}
 	}
 
+    /**
+     * Saves the graph in the binary CSR format of {@link GraphFile}, which
+     * loads through a memory map instead of being parsed.
+     * @param sFichero file name
+     */
+    public void saveBinary(String sFichero) {
+        if (debug) System.out.println("[debug] Saving binary graph to file " + sFichero);
+        try {
+            GraphFile.write(toCompact(), Paths.get(sFichero));
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        if (debug) System.out.println("[OK] DONE");
+    }
+
     public void makeCopy(String sFichero, Graph test) {
         File file = new File(sFichero);
         if (file.exists()) {
@@ -262,9 +290,7 @@ public class Graph  {
                 if (debug) System.out.println("[debug] Making copy of graph...");
                 Scanner s = new Scanner(file);
                 for(int i = 0; i < numProducts; i++){
-                    test.vertices.put(i, new ArrayList<>());
-                    Product p = new Product(products.get(i).getName(),products.get(i).getUnit(),products.get(i).getPrice());
-                    test.products.put(i, p);
+                    test.catalog.add(catalog.getName(i), catalog.getUnit(i), catalog.getPrice(i));
                 }
 
                 while (s.hasNextLine()) {
@@ -280,6 +306,10 @@ public class Graph  {
                                     Integer.parseInt(connection.split("-")[0].replaceAll("\\s+","")) :
                                     Integer.parseInt(connection);
                         test.buyTogether[i][j] = true;
+                        // Both ends list the edge, it is kept from the lower one
+                        if (j <= i) {
+                            continue;
+                        }
                         Edge edge;
                         if (weighted){
                             String [] splitted = connection.split("-");
@@ -290,17 +320,15 @@ public class Graph  {
                             } catch (ParseException e) {
                                 e.printStackTrace();
                             }
-                            edge = new Edge(test.products.get(i), test.products.get(j), weight);
+                            edge = new Edge(i, j, weight);
                         } else{
-                            edge = new Edge(test.products.get(i), test.products.get(j));
+                            edge = new Edge(i, j);
 
                         }
-                        test.products.get(i).addEdge(edge);
-                        test.products.get(j).addEdge(edge);
-                        if(j > i){
-                            test.edges.add(n, edge);
-                            n++;
-                        }
+                        test.incident.get(i).add(edge);
+                        test.incident.get(j).add(edge);
+                        test.edges.add(n, edge);
+                        n++;
                     }
 
 
@@ -315,7 +343,7 @@ public class Graph  {
     }
 
     private String edgeToString(Edge edge) {
-        return getKeyProduct(edge.getFirst()) + " - " + getKeyProduct(edge.getSecond());
+        return edge.getFirst() + " - " + edge.getSecond();
     }
 
     public void printGraph(){
@@ -323,31 +351,10 @@ public class Graph  {
         System.out.println("=====\n");
         StringBuilder stringToPrint = new StringBuilder();
 
-        for (Map.Entry<Integer, ArrayList<Product>> entry : vertices.entrySet()) {
-            int i = entry.getKey();
-            stringToPrint.append("Node(");
-            if (vertices.get(i).isEmpty()){
-                stringToPrint.append(i).append(')');
-            } else {
-                stringToPrint.append(getKeyGraph(vertices.get(i))).append(',');
-            }
-
-            for (int j = 0; j < vertices.get(i).size(); j++) {
-                stringToPrint.append(getKeyProduct(vertices.get(i).get(j))).append(',');
-            }
-
-            if (stringToPrint.toString().lastIndexOf(',') != -1) {
-                stringToPrint.deleteCharAt(stringToPrint.toString().lastIndexOf(','));
-            }
-
-            if (vertices.get(i).isEmpty()){
-                stringToPrint.append(" : [");
-            } else {
-                stringToPrint.append(") : [");
-            }
-
-            for (int j = 0; j < products.get(i).getEdges().size(); j++) {
-                stringToPrint.append(getKeyProduct(products.get(i).getEdge(j).getOppositeEnd(products.get(i)))).append(",");
+        for (int i = 0; i < numProducts; i++) {
+            stringToPrint.append("Node(").append(i).append(") : [");
+            for (Edge edge : incident.get(i)) {
+                stringToPrint.append(edge.getOppositeEnd(i)).append(",");
             }
 
             if (stringToPrint.toString().lastIndexOf(',') != -1) {
@@ -365,10 +372,10 @@ public class Graph  {
         System.out.println("INITIAL GRAPH");
         System.out.println("=============\n");
         StringBuilder stringToPrint = new StringBuilder();
-        for (int i = 0; i < products.size(); i++) {
+        for (int i = 0; i < numProducts; i++) {
             stringToPrint.append(i).append(": [");
-            for (int j = 0; j < products.get(i).getEdges().size(); j++) {
-                stringToPrint.append(getKeyProduct(products.get(i).getEdge(j).getOppositeEnd(products.get(i)))).append(",");
+            for (Edge edge : incident.get(i)) {
+                stringToPrint.append(edge.getOppositeEnd(i)).append(",");
             }
 
             if (stringToPrint.toString().lastIndexOf(',') != -1) {
@@ -398,18 +405,18 @@ public class Graph  {
         System.out.println();
         System.out.println("PRODUCT LIST");
         System.out.println("============\n");
-        for (int i = 0; i < products.size(); i++) {
-            System.out.println("Product_" + i + ": " + products.get(i).toString());
+        for (int i = 0; i < catalog.size(); i++) {
+            System.out.println("Product_" + i + ": Name: " + catalog.getName(i) + ", Unit: " + catalog.getUnit(i)
+                    + ", Price: " + catalog.getPrice(i));
         }
         System.out.println();
     }
 
     public void printProductsConnection() {
-        for (int i = 0; i < products.size(); i++) {
+        for (int i = 0; i < numProducts; i++) {
             System.out.print(i + ": ");
-            for (int j = 0; j < products.get(i).getEdges().size(); j++) {
-                Edge e = products.get(i).getEdge(j);
-                System.out.print(getKeyProduct(e.getFirst()) + " - " + getKeyProduct(e.getOppositeEnd(e.getFirst())) + " ");
+            for (Edge e : incident.get(i)) {
+                System.out.print(edgeToString(e) + " ");
             }
             System.out.println();
         }
@@ -0,0 +1,253 @@
+package src.com.karger.karger;
+
+import src.com.karger.metrics.Metrics;
+import src.com.karger.metrics.MetricsSink;
+import src.com.karger.utils.RandomGenerator;
+
+import java.util.BitSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Runs independent Karger trials in parallel over one shared, read only
+ * {@link CompactGraph}. Trials are split in ranges with fork-join, every leaf
+ * reuses the {@link TrialWorkspace} of its thread, and results are reduced to
+ * the lightest cut. Trial number i always draws from the stream
+ * {@link RandomGenerator#stream}(seed, i), so a seeded run gives the same
+ * result on any number of threads and any single trial can be replayed.
+ *
+ * A runner built with its own parallelism owns its pool and shuts it down on
+ * {@link #close()}, pools given by the caller stay the caller's.
+ */
+public class KargerRunner implements MinCutSolver, AutoCloseable {
+
+    /**
+     * Trials run sequentially by a leaf task before it stops splitting.
+     */
+    private static final int LEAF_TRIALS = 16;
+
+    private final CompactGraph graph;
+    private final ForkJoinPool pool;
+    private final boolean ownsPool;
+    private ContractionStrategy strategy = ContractionStrategy.EDGE_SAMPLING;
+    private long seed = RandomGenerator.newSeed();
+
+    /**
+     * Runner over the common fork-join pool.
+     * @param graph graph to cut
+     */
+    public KargerRunner(CompactGraph graph) {
+        this(graph, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Runner over a dedicated pool, shut down by {@link #close()}.
+     * @param graph graph to cut
+     * @param parallelism number of worker threads
+     */
+    public KargerRunner(CompactGraph graph, int parallelism) {
+        this(graph, new ForkJoinPool(parallelism), true);
+    }
+
+    /**
+     * Runner over a pool of the caller, which {@link #close()} leaves running.
+     * @param graph graph to cut
+     * @param pool pool the trials run on
+     */
+    public KargerRunner(CompactGraph graph, ForkJoinPool pool) {
+        this(graph, pool, false);
+    }
+
+    private KargerRunner(CompactGraph graph, ForkJoinPool pool, boolean ownsPool) {
+        this.graph = graph;
+        this.pool = pool;
+        this.ownsPool = ownsPool;
+    }
+
+    /**
+     * Shuts down the pool if this runner created it, trials already running finish.
+     */
+    @Override
+    public void close() {
+        if (ownsPool) {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Runs trials until the default {@link TrialScheduler} is confident in the cut.
+     * @return best cut found
+     */
+    @Override
+    public CutResult minCut() {
+        return new TrialScheduler(this).run();
+    }
+
+    /**
+     * Runs the given number of trials and keeps the lightest cut.
+     * @param trials number of independent trials
+     * @return best cut, its partition and how many trials found it
+     */
+    public CutResult run(int trials) {
+        return run(0, trials, 0);
+    }
+
+    /**
+     * Runs the trials numbered [from, to), so a long run can be done in batches
+     * that give the same result as a single call.
+     * @param from number of the first trial
+     * @param to number after the last trial
+     * @param deadline value of System.nanoTime() at which running trials are
+     *                 abandoned and no more are started, 0 for none
+     * @return best cut of the trials that completed
+     */
+    public CutResult run(int from, int to, long deadline) {
+        return run(from, to, deadline, null);
+    }
+
+    /**
+     * Runs the trials numbered [from, to) until they end, the deadline passes
+     * or the run is cancelled, whichever comes first.
+     * @param from number of the first trial
+     * @param to number after the last trial
+     * @param deadline value of System.nanoTime() at which running trials are
+     *                 abandoned and no more are started, 0 for none
+     * @param cancelled check that abandons the trials like the deadline once true, null for none
+     * @return best cut of the trials that completed
+     */
+    public CutResult run(int from, int to, long deadline, BooleanSupplier cancelled) {
+        if (!Metrics.isEnabled()) {
+            return pool.invoke(new Trials(from, to, deadline, cancelled));
+        }
+        long start = System.nanoTime();
+        CutResult result = pool.invoke(new Trials(from, to, deadline, cancelled));
+        Metrics.sink().run("karger", result.getTrials(), System.nanoTime() - start);
+        return result;
+    }
+
+    /**
+     * Runs a single trial of a previous run with the same seed again.
+     * @param trial number of the trial
+     * @return cut found by that trial
+     */
+    public CutResult replay(long trial) {
+        TrialWorkspace workspace = TrialWorkspace.local();
+        Contraction contraction = workspace.contraction(graph, strategy);
+        double cut = contraction.trial(workspace.stream(seed, trial));
+        return new CutResult(cut, contraction.side(), 1, 1, trial);
+    }
+
+    /**
+     * @param seed master seed every trial stream is derived from
+     * @return this runner
+     */
+    public KargerRunner setSeed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    /**
+     * @return master seed, randomly chosen unless it was set
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * @param strategy how every trial orders its contractions
+     * @return this runner
+     */
+    public KargerRunner setStrategy(ContractionStrategy strategy) {
+        this.strategy = strategy;
+        return this;
+    }
+
+    public ContractionStrategy getStrategy() {
+        return strategy;
+    }
+
+    public CompactGraph getGraph() {
+        return graph;
+    }
+
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    private class Trials extends RecursiveTask<CutResult> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final long deadline;
+        private final BooleanSupplier cancelled;
+
+        Trials(int from, int to, long deadline, BooleanSupplier cancelled) {
+            this.from = from;
+            this.to = to;
+            this.deadline = deadline;
+            this.cancelled = cancelled;
+        }
+
+        @Override
+        protected CutResult compute() {
+            if (to - from <= LEAF_TRIALS) {
+                return runLeaf();
+            }
+            int mid = (from + to) >>> 1;
+            Trials right = new Trials(mid, to, deadline, cancelled);
+            Trials left = new Trials(from, mid, deadline, cancelled);
+            right.fork();
+            CutResult result = left.compute();
+            return result.reduce(right.join());
+        }
+
+        private CutResult runLeaf() {
+            if (from >= to || expired()) {
+                return CutResult.empty();
+            }
+            TrialWorkspace workspace = TrialWorkspace.local();
+            Contraction contraction = workspace.contraction(graph, strategy);
+            contraction.setDeadline(deadline);
+            contraction.setCancellation(cancelled);
+            // Read once per leaf, trials are only timed when someone listens
+            MetricsSink sink = Metrics.sink();
+            boolean timed = sink != MetricsSink.NONE;
+            double best = Double.POSITIVE_INFINITY;
+            BitSet side = new BitSet();
+            long hits = 0;
+            long trial = -1;
+            long completed = 0;
+            for (int i = from; i < to && !expired(); i++) {
+                long start = timed ? System.nanoTime() : 0;
+                double cut = contraction.trial(workspace.stream(seed, i));
+                if (contraction.isAborted()) {
+                    break;
+                }
+                if (timed) {
+                    sink.trial(System.nanoTime() - start, contraction.getContractions(),
+                            contraction.getSelfLoops(), contraction.getSamples());
+                }
+                completed++;
+                int cmp = Double.compare(cut, best);
+                if (cmp < 0) {
+                    // The partition is only read when the cut improves
+                    best = cut;
+                    side = contraction.side();
+                    hits = 1;
+                    trial = i;
+                } else if (cmp == 0) {
+                    hits++;
+                }
+            }
+            return new CutResult(best, side, hits, completed, trial);
+        }
+
+        private boolean expired() {
+            return (deadline != 0 && System.nanoTime() - deadline >= 0)
+                    || (cancelled != null && cancelled.getAsBoolean());
+        }
+    }
+}
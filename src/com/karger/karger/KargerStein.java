@@ -0,0 +1,249 @@
+package src.com.karger.karger;
+
+import src.com.karger.metrics.Metrics;
+import src.com.karger.metrics.MetricsSink;
+import src.com.karger.utils.RandomGenerator;
+
+import java.util.BitSet;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Karger-Stein recursive contraction. A graph with n vertices is contracted
+ * twice, independently, down to about n/sqrt(2) vertices and the algorithm
+ * recurses on both results, keeping the lighter cut. One run finds the minimum
+ * cut with probability Omega(1/log n), so O(log^2 n) runs are enough where plain
+ * Karger needs O(n^2 log n) trials.
+ *
+ * Every recursion level works on a compact snapshot of the contracted graph,
+ * and both branches of large levels run in parallel as fork-join tasks.
+ */
+public class KargerStein implements MinCutSolver {
+
+    /**
+     * Graphs with at most this many vertices are solved exactly by enumeration.
+     */
+    private static final int BASE_VERTICES = 6;
+
+    /**
+     * Graphs with fewer vertices run both branches in the current thread.
+     */
+    private static final int PARALLEL_VERTICES = 128;
+
+    private final CompactGraph graph;
+    private final ForkJoinPool pool;
+    private long seed = RandomGenerator.newSeed();
+
+    public KargerStein(CompactGraph graph) {
+        this(graph, ForkJoinPool.commonPool());
+    }
+
+    public KargerStein(CompactGraph graph, ForkJoinPool pool) {
+        this.graph = graph;
+        this.pool = pool;
+    }
+
+    /**
+     * @param seed master seed, run number i draws from {@link RandomGenerator#stream}(seed, i)
+     * @return this instance
+     */
+    public KargerStein setSeed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Number of runs that finds the minimum cut with high probability.
+     * @param n number of vertices
+     * @return ceil(ln(n)^2), at least 1
+     */
+    public static int repetitions(int n) {
+        double log = Math.log(Math.max(n, 2));
+        return Math.max(1, (int) Math.ceil(log * log));
+    }
+
+    @Override
+    public CutResult minCut() {
+        return run();
+    }
+
+    /**
+     * Runs the recommended number of repetitions for this graph.
+     * @return best cut found
+     */
+    public CutResult run() {
+        return run(repetitions(graph.getNumVertices()));
+    }
+
+    /**
+     * @param runs number of independent recursive runs
+     * @return best cut found, hits count the runs that found it
+     */
+    public CutResult run(int runs) {
+        Level root = new Level(null, null, graph);
+        MetricsSink sink = Metrics.sink();
+        long start = (sink != MetricsSink.NONE) ? System.nanoTime() : 0;
+
+        CutResult best = CutResult.empty();
+        for (int i = 0; i < runs; i++) {
+            Leaf leaf = pool.invoke(new Branch(root, graph.getNumVertices(), RandomGenerator.stream(seed, i)));
+            // A whole recursive run counts as a single trial, and only its best leaf is mapped back
+            best = best.reduce(new CutResult(leaf.weight, leaf.side(graph.getNumVertices()), 1, 1, i));
+        }
+        if (sink != MetricsSink.NONE) {
+            sink.run("karger-stein", runs, System.nanoTime() - start);
+        }
+        return best;
+    }
+
+    /**
+     * Contracted graph of one recursion level. Levels only know how their own
+     * vertices came from their parent's, so building one costs O(E) of the level
+     * and original vertices are only mapped back for the winning cut.
+     */
+    private static class Level {
+
+        private final Level parent;
+        // Vertex of this level for every vertex of the parent level
+        private final int[] relabel;
+        private final CompactGraph graph;
+
+        Level(Level parent, int[] relabel, CompactGraph graph) {
+            this.parent = parent;
+            this.relabel = relabel;
+            this.graph = graph;
+        }
+
+        /*
+         * Vertex of this level holding the original vertex v.
+         */
+        int vertexOf(int v) {
+            return (parent == null) ? v : relabel[parent.vertexOf(v)];
+        }
+    }
+
+    /**
+     * Lightest cut of a branch, a bipartition of the super vertices of a small level.
+     */
+    private static class Leaf {
+
+        private final double weight;
+        private final Level level;
+        private final int mask;
+
+        Leaf(double weight, Level level, int mask) {
+            this.weight = weight;
+            this.level = level;
+            this.mask = mask;
+        }
+
+        Leaf min(Leaf other) {
+            return (Double.compare(other.weight, weight) < 0) ? other : this;
+        }
+
+        /*
+         * Original vertices whose super vertex is in the mask, oriented so vertex 0 is included.
+         */
+        BitSet side(int n) {
+            BitSet side = new BitSet(n);
+            if (level == null) {
+                return side;
+            }
+            for (int v = 0; v < n; v++) {
+                if (((mask >> level.vertexOf(v)) & 1) != 0) {
+                    side.set(v);
+                }
+            }
+            if (n > 0 && !side.get(0)) {
+                side.flip(0, n);
+            }
+            return side;
+        }
+    }
+
+    /**
+     * One branch of the recursion: contracts the parent level down to the
+     * target size and recurses twice on the result.
+     */
+    private static class Branch extends RecursiveTask<Leaf> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Level parent;
+        private final int target;
+        private final SplittableRandom rnd;
+
+        Branch(Level parent, int target, SplittableRandom rnd) {
+            this.parent = parent;
+            this.target = target;
+            this.rnd = rnd;
+        }
+
+        @Override
+        protected Leaf compute() {
+            Level level = contract();
+            int n = level.graph.getNumVertices();
+            if (n <= BASE_VERTICES || level.graph.getNumEdges() == 0) {
+                return enumerate(level);
+            }
+
+            int next = (int) Math.ceil(1 + n / Math.sqrt(2));
+            Branch first = new Branch(level, next, rnd.split());
+            Branch second = new Branch(level, next, rnd.split());
+            if (n < PARALLEL_VERTICES) {
+                return first.compute().min(second.compute());
+            }
+            second.fork();
+            Leaf leaf = first.compute();
+            return leaf.min(second.join());
+        }
+
+        private Level contract() {
+            CompactGraph graph = parent.graph;
+            if (target >= graph.getNumVertices()) {
+                return parent;
+            }
+            Contraction contraction = TrialWorkspace.local().contraction(graph, ContractionStrategy.EDGE_SAMPLING);
+            contraction.contract(rnd, target);
+            int[] relabel = new int[graph.getNumVertices()];
+            CompactGraph contracted = contraction.snapshot(relabel);
+            return new Level(parent, relabel, contracted);
+        }
+
+        /*
+         * Exact minimum cut of a small level, trying every bipartition that keeps
+         * super vertex 0 on the first side. A level without edges has a cut of 0.
+         */
+        private Leaf enumerate(Level level) {
+            CompactGraph graph = level.graph;
+            int n = graph.getNumVertices();
+            if (n < 2) {
+                return new Leaf(Double.POSITIVE_INFINITY, null, 0);
+            }
+            if (graph.getNumEdges() == 0) {
+                return new Leaf(0, level, 1);
+            }
+
+            double best = Double.POSITIVE_INFINITY;
+            int bestMask = 1;
+            for (int mask = 1; mask < (1 << n) - 1; mask += 2) {
+                double cut = 0;
+                for (int e = 0; e < graph.getNumEdges(); e++) {
+                    if (((mask >> graph.getSrc(e)) & 1) != ((mask >> graph.getDst(e)) & 1)) {
+                        cut += graph.getWeight(e);
+                    }
+                }
+                if (cut < best) {
+                    best = cut;
+                    bestMask = mask;
+                }
+            }
+            return new Leaf(best, level, bestMask);
+        }
+    }
+}
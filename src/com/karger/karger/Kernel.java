@@ -0,0 +1,371 @@
+package src.com.karger.karger;
+
+import src.com.karger.utils.IntDoubleHashMap;
+
+import java.util.BitSet;
+
+/**
+ * Smaller graph with the same minimum cut, obtained by contracting edges that
+ * a minimum cut never has to cross. An edge (u, v) of weight w is contracted
+ * when, with b the weight of the lightest cut known so far:
+ * <ul>
+ *   <li>w &gt;= b, every cut separating u and v weighs at least b;</li>
+ *   <li>2w &gt;= deg(u) or 2w &gt;= deg(v), moving u (or v) to the other side
+ *       of any cut separating them does not make it heavier unless u alone is
+ *       the cut, which is known. This folds degree 1 vertices and the
+ *       heavier edge of degree 2 vertices;</li>
+ *   <li>w + sum over common neighbours x of min(w(u, x), w(v, x)) &gt;= b,
+ *       Padberg and Rinaldi's triangle test, only tried around vertices of low
+ *       degree to keep the pass linear on dense graphs.</li>
+ * </ul>
+ * b starts at the lightest weighted degree and drops whenever a contracted
+ * super vertex is lighter, so every super vertex is a known cut. The tests
+ * run until none of them applies any more.
+ *
+ * Super vertices keep one weighted edge per neighbour, as in
+ * {@link ContractionStrategy#COALESCED}. Kernel vertex 0 holds original vertex
+ * 0, and {@link #lift(CutResult)} maps a cut of the kernel back to the
+ * original vertices, which for a {@link Graph} are the product ids.
+ */
+public class Kernel {
+
+    /**
+     * The triangle test of an edge runs when one of its ends has at most this many neighbours.
+     */
+    private static final int TRIANGLE_DEGREE = 64;
+
+    private final CompactGraph original;
+    private final CompactGraph graph;
+    private final int[] vertexOf;
+    private final double bound;
+    private final BitSet boundSide;
+    private final int heavy;
+    private final int halfDegree;
+    private final int triangle;
+
+    private Kernel(CompactGraph original, CompactGraph graph, int[] vertexOf, double bound, BitSet boundSide,
+                   int heavy, int halfDegree, int triangle) {
+        this.original = original;
+        this.graph = graph;
+        this.vertexOf = vertexOf;
+        this.bound = bound;
+        this.boundSide = boundSide;
+        this.heavy = heavy;
+        this.halfDegree = halfDegree;
+        this.triangle = triangle;
+    }
+
+    /**
+     * @param graph graph to reduce
+     * @return kernel of the graph
+     */
+    public static Kernel of(CompactGraph graph) {
+        return of(graph, null);
+    }
+
+    /**
+     * @param graph graph to reduce
+     * @param bound any cut of the graph, lets the heavy edge tests start lower, null for none
+     * @return kernel of the graph
+     */
+    public static Kernel of(CompactGraph graph, CutResult bound) {
+        return new Reduction(graph, bound).run();
+    }
+
+    /**
+     * Hits and trials stay those of the run on the kernel.
+     * @param result cut found on the kernel
+     * @return the lighter of that cut and the lightest cut seen while reducing, on the original vertices
+     */
+    public CutResult lift(CutResult result) {
+        if (graph.getNumVertices() < 2 || result.getWeight() > bound) {
+            return new CutResult(bound, (BitSet) boundSide.clone(), result.getHits(), result.getTrials(), -1);
+        }
+        BitSet side = new BitSet(original.getNumVertices());
+        BitSet kernelSide = result.getSide();
+        for (int v = 0; v < vertexOf.length; v++) {
+            if (kernelSide.get(vertexOf[v])) {
+                side.set(v);
+            }
+        }
+        return new CutResult(result.getWeight(), side, result.getHits(), result.getTrials(), result.getTrial());
+    }
+
+    /**
+     * @return the kernel, one weighted edge per pair of super vertices
+     */
+    public CompactGraph getGraph() {
+        return graph;
+    }
+
+    public CompactGraph getOriginal() {
+        return original;
+    }
+
+    /**
+     * @param v original vertex, or product id
+     * @return kernel vertex it was contracted into
+     */
+    public int getVertex(int v) {
+        return vertexOf[v];
+    }
+
+    /**
+     * @param k kernel vertex
+     * @return original vertices, or product ids, contracted into it
+     */
+    public BitSet getMembers(int k) {
+        BitSet members = new BitSet(vertexOf.length);
+        for (int v = 0; v < vertexOf.length; v++) {
+            if (vertexOf[v] == k) {
+                members.set(v);
+            }
+        }
+        return members;
+    }
+
+    /**
+     * @return weight of the lightest cut seen while reducing, no minimum cut is heavier
+     */
+    public double getBound() {
+        return bound;
+    }
+
+    public String toString() {
+        return String.format("Kernel: %d -> %d vertices, %d -> %d edges (%d heavy, %d half degree, %d triangle contractions), bound %.3f",
+                original.getNumVertices(), graph.getNumVertices(), original.getNumEdges(), graph.getNumEdges(),
+                heavy, halfDegree, triangle, bound);
+    }
+
+    /*
+     * State of one reduction: neighbour maps, degrees and member lists of the super vertices
+     */
+    private static final class Reduction {
+
+        private final CompactGraph graph;
+        private final int n;
+        private final IntDoubleHashMap[] neighbours;
+        private final double[] degree;
+        private final int[] next;
+        private final int[] last;
+        private final int[] size;
+        private double bound;
+        private BitSet boundSide;
+        private int heavy;
+        private int halfDegree;
+        private int triangle;
+        // Slots of the map of the vertex being scanned the tests go on from
+        private int cheapSlot;
+        private int triangleSlot;
+
+        Reduction(CompactGraph graph, CutResult cut) {
+            this.graph = graph;
+            this.n = graph.getNumVertices();
+            int[] count = new int[n];
+            for (int e = 0; e < graph.getNumEdges(); e++) {
+                count[graph.getSrc(e)]++;
+                count[graph.getDst(e)]++;
+            }
+            neighbours = new IntDoubleHashMap[n];
+            degree = new double[n];
+            next = new int[n];
+            last = new int[n];
+            size = new int[n];
+            for (int v = 0; v < n; v++) {
+                neighbours[v] = new IntDoubleHashMap(count[v]);
+                next[v] = -1;
+                last[v] = v;
+                size[v] = 1;
+            }
+            for (int e = 0; e < graph.getNumEdges(); e++) {
+                int a = graph.getSrc(e);
+                int b = graph.getDst(e);
+                if (a != b) {
+                    neighbours[a].add(b, graph.getWeight(e));
+                    neighbours[b].add(a, graph.getWeight(e));
+                    degree[a] += graph.getWeight(e);
+                    degree[b] += graph.getWeight(e);
+                }
+            }
+
+            bound = Double.POSITIVE_INFINITY;
+            boundSide = new BitSet();
+            if (cut != null) {
+                bound = cut.getWeight();
+                boundSide = cut.getSide();
+            }
+            for (int v = 0; v < n && n > 1; v++) {
+                record(v);
+            }
+        }
+
+        Kernel run() {
+            boolean changed = true;
+            while (changed) {
+                changed = false;
+                for (int u = 0; u < n; u++) {
+                    // Scan u while it keeps absorbing neighbours, without going back over
+                    // the slots it passed: an edge they missed is found by the next pass
+                    cheapSlot = 0;
+                    triangleSlot = 0;
+                    int v;
+                    while (neighbours[u] != null && (v = contractible(u)) >= 0) {
+                        changed = true;
+                        if (merge(u, v) != u) {
+                            break;
+                        }
+                    }
+                }
+            }
+            return build();
+        }
+
+        /*
+         * Neighbour of u the edge to which passes one of the tests, -1 if none.
+         * Scans resume at the slot of the last hit, which removing that neighbour
+         * refills with the entry after it, so absorbing d leaves costs O(d).
+         */
+        private int contractible(int u) {
+            IntDoubleHashMap map = neighbours[u];
+            for (; cheapSlot < map.capacity(); cheapSlot++) {
+                int x = map.keyAt(cheapSlot);
+                if (x < 0) {
+                    continue;
+                }
+                double w = map.valueAt(cheapSlot);
+                if (2 * w >= degree[u] || 2 * w >= degree[x]) {
+                    halfDegree++;
+                    return x;
+                }
+                if (w >= bound) {
+                    heavy++;
+                    return x;
+                }
+            }
+            for (; triangleSlot < map.capacity(); triangleSlot++) {
+                int x = map.keyAt(triangleSlot);
+                if (x >= 0 && Math.min(map.size(), neighbours[x].size()) <= TRIANGLE_DEGREE
+                        && triangleWeight(u, x, map.valueAt(triangleSlot)) >= bound) {
+                    triangle++;
+                    return x;
+                }
+            }
+            return -1;
+        }
+
+        /* Weight every cut separating u and v must cross, through their edge and common neighbours */
+        private double triangleWeight(int u, int v, double w) {
+            IntDoubleHashMap small = (neighbours[u].size() <= neighbours[v].size()) ? neighbours[u] : neighbours[v];
+            IntDoubleHashMap large = (small == neighbours[u]) ? neighbours[v] : neighbours[u];
+            double total = w;
+            for (int slot = 0; slot < small.capacity(); slot++) {
+                int x = small.keyAt(slot);
+                if (x >= 0 && large.containsKey(x)) {
+                    total += Math.min(small.valueAt(slot), large.get(x));
+                }
+            }
+            return total;
+        }
+
+        /* Contracts the edge (u, v), folding the smaller map into the larger, returns the super vertex left */
+        private int merge(int u, int v) {
+            int large = (neighbours[u].size() >= neighbours[v].size()) ? u : v;
+            int small = (large == u) ? v : u;
+            IntDoubleHashMap into = neighbours[large];
+            IntDoubleHashMap from = neighbours[small];
+            double joined = into.remove(small);
+            for (int slot = 0; slot < from.capacity(); slot++) {
+                int x = from.keyAt(slot);
+                if (x < 0 || x == large) {
+                    continue;
+                }
+                double w = from.valueAt(slot);
+                neighbours[x].remove(small);
+                neighbours[x].add(large, w);
+                into.add(x, w);
+            }
+            neighbours[small] = null;
+            degree[large] = Math.max(0, degree[large] + degree[small] - 2 * joined);
+            next[last[large]] = small;
+            last[large] = last[small];
+            size[large] += size[small];
+            record(large);
+            return large;
+        }
+
+        /* Takes the cut around a super vertex if it is lighter than the known one */
+        private void record(int v) {
+            if (size[v] == n || degree[v] >= bound) {
+                return;
+            }
+            bound = degree[v];
+            boundSide = new BitSet(n);
+            for (int x = v; x != -1; x = next[x]) {
+                boundSide.set(x);
+            }
+            if (!boundSide.get(0)) {
+                boundSide.flip(0, n);
+            }
+        }
+
+        /* Relabels the super vertices densely, the one holding vertex 0 first */
+        private Kernel build() {
+            int[] id = new int[n];
+            int count = 0;
+            int pairs = 0;
+            int root0 = -1;
+            for (int v = 0; v < n; v++) {
+                id[v] = -1;
+            }
+            for (int x = 0; x < n; x++) {
+                if (neighbours[x] != null) {
+                    for (int y = x; y != -1; y = next[y]) {
+                        if (y == 0) {
+                            root0 = x;
+                        }
+                    }
+                }
+            }
+            if (root0 >= 0) {
+                id[root0] = count++;
+            }
+            for (int v = 0; v < n; v++) {
+                if (neighbours[v] != null) {
+                    if (id[v] < 0) {
+                        id[v] = count++;
+                    }
+                    pairs += neighbours[v].size();
+                }
+            }
+            pairs /= 2;
+
+            int[] vertexOf = new int[n];
+            int[] src = new int[pairs];
+            int[] dst = new int[pairs];
+            double[] weight = new double[pairs];
+            boolean weighted = graph.isWeighted();
+            int e = 0;
+            for (int v = 0; v < n; v++) {
+                if (neighbours[v] == null) {
+                    continue;
+                }
+                for (int x = v; x != -1; x = next[x]) {
+                    vertexOf[x] = id[v];
+                }
+                IntDoubleHashMap map = neighbours[v];
+                for (int slot = 0; slot < map.capacity(); slot++) {
+                    int x = map.keyAt(slot);
+                    if (x >= 0 && id[v] < id[x]) {
+                        src[e] = id[v];
+                        dst[e] = id[x];
+                        weight[e] = map.valueAt(slot);
+                        weighted |= weight[e] != 1;
+                        e++;
+                    }
+                }
+            }
+            CompactGraph kernel = new CompactGraph(count, src, dst, weight, weighted);
+            return new Kernel(graph, kernel, vertexOf, bound, boundSide, heavy, halfDegree, triangle);
+        }
+    }
+}
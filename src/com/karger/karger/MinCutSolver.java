@@ -0,0 +1,13 @@
+package src.com.karger.karger;
+
+/**
+ * Anything able to find a minimum cut of the graph it was built for, exactly
+ * or with high probability. See {@link MinCutSolvers} to pick one by graph shape.
+ */
+public interface MinCutSolver {
+
+    /**
+     * @return lightest cut found
+     */
+    CutResult minCut();
+}
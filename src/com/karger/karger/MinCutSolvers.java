@@ -0,0 +1,74 @@
+package src.com.karger.karger;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Picks a minimum cut solver from the size and density of a graph.
+ * <ul>
+ *   <li>no solver at all for disconnected graphs and graphs of at most two
+ *       vertices, see {@link TrivialCuts};</li>
+ *   <li>Stoer-Wagner while its O(VE log V) cost stays affordable, it is exact;</li>
+ *   <li>Karger-Stein for larger dense graphs, where O(log^2 n) recursive runs
+ *       beat O(n^2 log n) independent trials;</li>
+ *   <li>the scheduled Karger runner for larger sparse graphs, where one trial
+ *       costs O(E) and the cut is usually rediscovered after a few trials.</li>
+ * </ul>
+ */
+public class MinCutSolvers {
+
+    /**
+     * Largest V * E * log2(V) the exact solver is used for.
+     */
+    private static final double EXACT_WORK = 1e9;
+
+    /**
+     * Graphs with more than this many edges per vertex count as dense.
+     */
+    private static final double DENSE_DEGREE = 64;
+
+    private MinCutSolvers() {
+    }
+
+    public static MinCutSolver stoerWagner(CompactGraph graph) {
+        return new StoerWagner(graph);
+    }
+
+    public static MinCutSolver kargerStein(CompactGraph graph, long seed) {
+        return new KargerStein(graph).setSeed(seed);
+    }
+
+    public static MinCutSolver karger(CompactGraph graph, long seed) {
+        return new KargerRunner(graph).setSeed(seed);
+    }
+
+    /**
+     * @param graph graph to cut
+     * @param seed seed for the randomized solvers
+     * @return solver expected to be the fastest for this graph
+     */
+    public static MinCutSolver choose(CompactGraph graph, long seed) {
+        return choose(graph, seed, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param graph graph to cut
+     * @param seed seed for the randomized solvers
+     * @param pool pool the randomized solvers run their trials on
+     * @return solver expected to be the fastest for this graph
+     */
+    public static MinCutSolver choose(CompactGraph graph, long seed, ForkJoinPool pool) {
+        CutResult trivial = TrivialCuts.of(graph);
+        if (trivial != null) {
+            return () -> trivial;
+        }
+        double n = Math.max(graph.getNumVertices(), 2);
+        double m = graph.getNumEdges();
+        if (n * m * (Math.log(n) / Math.log(2)) <= EXACT_WORK) {
+            return stoerWagner(graph);
+        }
+        if (m / n > DENSE_DEGREE) {
+            return new KargerStein(graph, pool).setSeed(seed);
+        }
+        return new KargerRunner(graph, pool).setSeed(seed);
+    }
+}
@@ -0,0 +1,188 @@
+package src.com.karger.karger;
+
+import src.com.karger.utils.IndexedMaxHeap;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Nagamochi-Ibaraki sparse k-certificate of a graph: a subgraph where every
+ * cut weighs at least min(its weight in the graph, k), built from one maximum
+ * adjacency ordering in O(E log V).
+ *
+ * Vertices are scanned in maximum adjacency order. When a vertex is scanned,
+ * each edge to an unscanned neighbour y is kept only if y was attached to the
+ * scanned vertices by less than k so far. For unweighted graphs that keeps at
+ * most k edges per vertex, O(kn) in total, whatever the density.
+ *
+ * k comes from a known cut: if the minimum cut is lighter than it, a minimum
+ * cut of the certificate is also a minimum cut of the graph, otherwise the
+ * known cut is one. {@link #lift(CutResult)} turns a cut of the certificate
+ * into the lighter of both, weighed in the original graph, so the trials can
+ * run on the certificate alone.
+ */
+public class SparseCertificate {
+
+    private final CompactGraph original;
+    private final CompactGraph graph;
+    private final double k;
+    private final BitSet boundSide;
+
+    private SparseCertificate(CompactGraph original, CompactGraph graph, double k, BitSet boundSide) {
+        this.original = original;
+        this.graph = graph;
+        this.k = k;
+        this.boundSide = boundSide;
+    }
+
+    /**
+     * Certificate for k the lightest weighted degree of the graph.
+     * @param graph graph to sparsify
+     * @return certificate of the graph
+     */
+    public static SparseCertificate of(CompactGraph graph) {
+        return of(graph, null);
+    }
+
+    /**
+     * Certificate for k the lighter of a known cut and the lightest weighted degree.
+     * @param graph graph to sparsify
+     * @param bound any cut of the graph, for instance from a few quick trials, null for none
+     * @return certificate of the graph
+     */
+    public static SparseCertificate of(CompactGraph graph, CutResult bound) {
+        int n = graph.getNumVertices();
+        double[] degree = new double[n];
+        for (int e = 0; e < graph.getNumEdges(); e++) {
+            // Self-loops never cross a cut
+            if (graph.getSrc(e) != graph.getDst(e)) {
+                degree[graph.getSrc(e)] += graph.getWeight(e);
+                degree[graph.getDst(e)] += graph.getWeight(e);
+            }
+        }
+        int lightest = 0;
+        for (int v = 1; v < n; v++) {
+            if (degree[v] < degree[lightest]) {
+                lightest = v;
+            }
+        }
+
+        double k;
+        BitSet side;
+        if (bound != null && n > 0 && bound.getWeight() < degree[lightest]) {
+            k = bound.getWeight();
+            side = bound.getSide();
+        } else if (n > 0) {
+            k = degree[lightest];
+            side = new BitSet(n);
+            if (lightest == 0) {
+                side.set(0);
+            } else {
+                side.set(0, n);
+                side.clear(lightest);
+            }
+        } else {
+            return new SparseCertificate(graph, graph, 0, new BitSet());
+        }
+        return new SparseCertificate(graph, sparsify(graph, k), k, side);
+    }
+
+    /**
+     * Hits and trials stay those of the run on the certificate.
+     * @param result cut found on the certificate
+     * @return the lighter of that cut and the one k came from, weighed in the original graph
+     */
+    public CutResult lift(CutResult result) {
+        double weight = original.cutWeight(result.getSide());
+        if (weight <= k) {
+            return new CutResult(weight, result.getSide(), result.getHits(), result.getTrials(), result.getTrial());
+        }
+        return new CutResult(k, (BitSet) boundSide.clone(), result.getHits(), result.getTrials(), -1);
+    }
+
+    /**
+     * @return the certificate, on the same vertices as the original graph
+     */
+    public CompactGraph getGraph() {
+        return graph;
+    }
+
+    public CompactGraph getOriginal() {
+        return original;
+    }
+
+    /**
+     * @return weight up to which the certificate keeps every cut
+     */
+    public double getK() {
+        return k;
+    }
+
+    /**
+     * @return fraction of the edges the certificate dropped
+     */
+    public double getReduction() {
+        int m = original.getNumEdges();
+        return (m == 0) ? 0 : 1.0 - (double) graph.getNumEdges() / m;
+    }
+
+    public String toString() {
+        return String.format("Sparse certificate for k=%.3f: %d -> %d edges (%.1f%% fewer)",
+                k, original.getNumEdges(), graph.getNumEdges(), 100 * getReduction());
+    }
+
+    /* Edges kept by one maximum adjacency ordering, see the class comment */
+    private static CompactGraph sparsify(CompactGraph graph, double k) {
+        int n = graph.getNumVertices();
+        int m = graph.getNumEdges();
+
+        // CSR adjacency holding edge ids, every edge at both ends
+        int[] offsets = new int[n + 1];
+        for (int e = 0; e < m; e++) {
+            offsets[graph.getSrc(e) + 1]++;
+            offsets[graph.getDst(e) + 1]++;
+        }
+        for (int v = 0; v < n; v++) {
+            offsets[v + 1] += offsets[v];
+        }
+        int[] fill = Arrays.copyOf(offsets, n);
+        int[] adj = new int[offsets[n]];
+        for (int e = 0; e < m; e++) {
+            adj[fill[graph.getSrc(e)]++] = e;
+            adj[fill[graph.getDst(e)]++] = e;
+        }
+
+        IndexedMaxHeap heap = new IndexedMaxHeap(n);
+        for (int v = 0; v < n; v++) {
+            heap.insert(v, 0);
+        }
+        boolean[] keep = new boolean[m];
+        int kept = 0;
+        while (!heap.isEmpty()) {
+            int x = heap.extractMax();
+            for (int i = offsets[x]; i < offsets[x + 1]; i++) {
+                int e = adj[i];
+                int y = graph.getSrc(e) ^ graph.getDst(e) ^ x;
+                if (heap.contains(y)) {
+                    if (heap.key(y) < k) {
+                        keep[e] = true;
+                        kept++;
+                    }
+                    heap.increase(y, graph.getWeight(e));
+                }
+            }
+        }
+
+        int[] src = new int[kept];
+        int[] dst = new int[kept];
+        double[] weight = new double[kept];
+        for (int e = 0, j = 0; e < m; e++) {
+            if (keep[e]) {
+                src[j] = graph.getSrc(e);
+                dst[j] = graph.getDst(e);
+                weight[j++] = graph.getWeight(e);
+            }
+        }
+        return new CompactGraph(n, src, dst, weight, graph.isWeighted());
+    }
+}
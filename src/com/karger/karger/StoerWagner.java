@@ -0,0 +1,136 @@
+package src.com.karger.karger;
+
+import src.com.karger.metrics.Metrics;
+import src.com.karger.metrics.MetricsSink;
+import src.com.karger.utils.IndexedMaxHeap;
+import src.com.karger.utils.UnionFind;
+
+import java.util.BitSet;
+
+/**
+ * Deterministic Stoer-Wagner minimum cut. Every phase orders the super
+ * vertices by maximum adjacency with an indexed max heap, the last one gives
+ * the cut of the phase and is merged into the one before it. V - 1 phases of
+ * O(E log V) each find the exact minimum cut, so it doubles as an oracle for
+ * the randomized solvers.
+ *
+ * Super vertices are tracked with a union-find plus a list of members, and
+ * edges are read from a CSR copy of the graph built once.
+ */
+public class StoerWagner implements MinCutSolver {
+
+    private final CompactGraph graph;
+
+    public StoerWagner(CompactGraph graph) {
+        this.graph = graph;
+    }
+
+    @Override
+    public CutResult minCut() {
+        int n = graph.getNumVertices();
+        if (n < 2) {
+            return new CutResult(Double.POSITIVE_INFINITY, new BitSet(), 0, 0);
+        }
+        MetricsSink sink = Metrics.sink();
+        long start = (sink != MetricsSink.NONE) ? System.nanoTime() : 0;
+
+        // CSR adjacency, every edge at both ends
+        int[] offsets = new int[n + 1];
+        for (int e = 0; e < graph.getNumEdges(); e++) {
+            offsets[graph.getSrc(e) + 1]++;
+            offsets[graph.getDst(e) + 1]++;
+        }
+        for (int v = 0; v < n; v++) {
+            offsets[v + 1] += offsets[v];
+        }
+        int[] fill = new int[n];
+        int[] adj = new int[offsets[n]];
+        double[] adjWeight = new double[offsets[n]];
+        for (int e = 0; e < graph.getNumEdges(); e++) {
+            int a = graph.getSrc(e);
+            int b = graph.getDst(e);
+            int i = offsets[a] + fill[a]++;
+            int j = offsets[b] + fill[b]++;
+            adj[i] = b;
+            adj[j] = a;
+            adjWeight[i] = graph.getWeight(e);
+            adjWeight[j] = graph.getWeight(e);
+        }
+
+        // Members of every super vertex as a linked list, first at the root
+        UnionFind components = new UnionFind(n);
+        int[] next = new int[n];
+        int[] last = new int[n];
+        int[] active = new int[n];
+        for (int v = 0; v < n; v++) {
+            next[v] = -1;
+            last[v] = v;
+            active[v] = v;
+        }
+        int numActive = n;
+
+        IndexedMaxHeap heap = new IndexedMaxHeap(n);
+        double best = Double.POSITIVE_INFINITY;
+        int bestRoot = -1;
+        BitSet bestSide = null;
+
+        while (numActive > 1) {
+            heap.clear();
+            for (int i = 0; i < numActive; i++) {
+                heap.insert(active[i], 0);
+            }
+
+            int previous = -1;
+            int current = -1;
+            double cutOfPhase = 0;
+            while (!heap.isEmpty()) {
+                previous = current;
+                current = heap.extractMax();
+                cutOfPhase = heap.key(current);
+                for (int v = current; v != -1; v = next[v]) {
+                    for (int i = offsets[v]; i < offsets[v + 1]; i++) {
+                        int t = components.find(adj[i]);
+                        if (t != current && heap.contains(t)) {
+                            heap.increase(t, adjWeight[i]);
+                        }
+                    }
+                }
+            }
+
+            if (cutOfPhase < best) {
+                best = cutOfPhase;
+                bestRoot = current;
+                bestSide = members(current, next, n);
+            }
+
+            // Merge the last vertex into the one before it, keeping the member lists joined
+            components.union(previous, current);
+            int root = components.find(previous);
+            int other = (root == previous) ? current : previous;
+            next[last[root]] = other;
+            last[root] = last[other];
+            for (int i = 0; i < numActive; i++) {
+                if (active[i] == other) {
+                    active[i] = active[--numActive];
+                    break;
+                }
+            }
+        }
+
+        if (bestRoot >= 0 && !bestSide.get(0)) {
+            bestSide.flip(0, n);
+        }
+        if (sink != MetricsSink.NONE) {
+            sink.run("stoer-wagner", 1, System.nanoTime() - start);
+        }
+        return new CutResult(best, bestSide, 1, 1);
+    }
+
+    private static BitSet members(int root, int[] next, int n) {
+        BitSet side = new BitSet(n);
+        for (int v = root; v != -1; v = next[v]) {
+            side.set(v);
+        }
+        return side;
+    }
+}
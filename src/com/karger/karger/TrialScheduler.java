@@ -0,0 +1,300 @@
+package src.com.karger.karger;
+
+import src.com.karger.io.Checkpoint;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ * Runs Karger trials in batches until the answer is good enough or the budget
+ * is spent, instead of a fixed number of trials. After every batch it stops if:
+ * <ul>
+ *   <li>enough trials ran for Karger's bound to guarantee the target success
+ *       probability: a trial finds a given minimum cut with probability at
+ *       least 2/(n(n-1)), so t trials miss it with probability (1-p)^t;</li>
+ *   <li>the best cut was found again often enough: if it shows up in a
+ *       fraction h/t of the trials, missing a cut at least as likely in all t
+ *       trials has probability about (1-h/t)^t &lt;= e^-h, so h hits reach the
+ *       target once e^-h &lt;= 1 - target (optional, on by default);</li>
+ *   <li>the trial budget or the deadline is reached, in which case trials
+ *       still running give up between contraction steps;</li>
+ *   <li>a cut no heavier than a known lower bound was found, so it is a
+ *       minimum cut (optional, for callers that know such a bound);</li>
+ *   <li>the caller cancelled the schedule, which running trials also notice
+ *       between contraction steps.</li>
+ * </ul>
+ * A listener can follow the best cut so far, it is called after every batch
+ * that improves it.
+ *
+ * Long schedules can write a {@link Checkpoint} between batches every few
+ * seconds and when they stop, and a new schedule can resume from it: it
+ * starts at the next trial number with the best cut, hits and trial count of
+ * the checkpoint, so it ends as the interrupted schedule would have.
+ * Batches keep the trial numbering of a single run, so a seeded schedule
+ * finds the same cut as a plain {@link KargerRunner} run of as many trials.
+ */
+public class TrialScheduler {
+
+    public enum Stop {
+        /** Karger's bound reached the target probability */
+        BOUND,
+        /** The best cut was rediscovered often enough */
+        REDISCOVERY,
+        /** The maximum number of trials ran */
+        TRIALS,
+        /** The deadline passed */
+        DEADLINE,
+        /** A cut at the known lower bound was found */
+        LOWER_BOUND,
+        /** The cancellation check returned true */
+        CANCELLED
+    }
+
+    private final KargerRunner runner;
+    private final int numVertices;
+    private double target;
+    private boolean rediscovery = true;
+    private boolean kargerBound = true;
+    private int maxTrials = Integer.MAX_VALUE;
+    private long timeoutNanos = 0;
+    private int batch;
+    private double lowerBound = Double.NEGATIVE_INFINITY;
+    private BooleanSupplier cancelled;
+    private Consumer<CutResult> progress;
+    private Path checkpoint;
+    private long checkpointNanos;
+    private long fingerprint;
+    private CutResult start = CutResult.empty();
+    private int first;
+    private Stop stop;
+
+    /**
+     * Schedule with the default target success probability of 1 - 1/n.
+     * @param runner runner doing the trials, its seed and strategy are used as they are
+     */
+    public TrialScheduler(KargerRunner runner) {
+        this.runner = runner;
+        this.numVertices = runner.getGraph().getNumVertices();
+        this.target = 1.0 - 1.0 / Math.max(numVertices, 2);
+        this.batch = Math.max(64, 16 * runner.getParallelism());
+    }
+
+    /**
+     * @param target probability of having found a minimum cut, in (0, 1)
+     * @return this scheduler
+     */
+    public TrialScheduler setTarget(double target) {
+        if (!(target > 0 && target < 1)) {
+            throw new IllegalArgumentException("Target probability must be in (0, 1): " + target);
+        }
+        this.target = target;
+        return this;
+    }
+
+    /**
+     * @param rediscovery whether to also stop once the best cut was rediscovered enough times
+     * @return this scheduler
+     */
+    public TrialScheduler setRediscovery(boolean rediscovery) {
+        this.rediscovery = rediscovery;
+        return this;
+    }
+
+    /**
+     * @param kargerBound whether to stop once Karger's bound reaches the target,
+     *                    off to run exactly the maximum number of trials
+     * @return this scheduler
+     */
+    public TrialScheduler setKargerBound(boolean kargerBound) {
+        this.kargerBound = kargerBound;
+        return this;
+    }
+
+    public TrialScheduler setMaxTrials(int maxTrials) {
+        this.maxTrials = maxTrials;
+        return this;
+    }
+
+    /**
+     * @param millis wall clock budget for the whole schedule, 0 for none
+     * @return this scheduler
+     */
+    public TrialScheduler setTimeout(long millis) {
+        this.timeoutNanos = millis * 1_000_000L;
+        return this;
+    }
+
+    /**
+     * @param lowerBound weight no cut of the graph is lighter than, the schedule
+     *                   stops as soon as a cut of at most this weight is found
+     * @return this scheduler
+     */
+    public TrialScheduler setLowerBound(double lowerBound) {
+        this.lowerBound = lowerBound;
+        return this;
+    }
+
+    /**
+     * @param cancelled check that stops the schedule once true, asked between
+     *                  batches and by running trials between contraction steps, null for none
+     * @return this scheduler
+     */
+    public TrialScheduler setCancellation(BooleanSupplier cancelled) {
+        this.cancelled = cancelled;
+        return this;
+    }
+
+    /**
+     * @param progress called from the scheduling thread with the best cut so far
+     *                 after every batch that makes it lighter, null for none
+     * @return this scheduler
+     */
+    public TrialScheduler setProgress(Consumer<CutResult> progress) {
+        this.progress = progress;
+        return this;
+    }
+
+    /**
+     * @param file checkpoint written between batches and when the schedule stops, null for none
+     * @param intervalMillis least time between two checkpoints
+     * @return this scheduler
+     */
+    public TrialScheduler setCheckpoint(Path file, long intervalMillis) {
+        this.checkpoint = file;
+        this.checkpointNanos = intervalMillis * 1_000_000L;
+        if (file != null) {
+            fingerprint = Checkpoint.fingerprint(runner.getGraph());
+        }
+        return this;
+    }
+
+    /**
+     * Carries on the schedule a checkpoint was taken from: the runner takes its
+     * seed, and the next run starts at its next trial with its best cut.
+     * @param saved checkpoint of a schedule on the same graph
+     * @return this scheduler
+     * @throws IllegalArgumentException if the checkpoint was taken on another graph
+     */
+    public TrialScheduler resume(Checkpoint saved) {
+        if (!saved.matches(runner.getGraph())) {
+            throw new IllegalArgumentException("Checkpoint was taken on another graph");
+        }
+        if (saved.getNext() > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Checkpoint is past the last trial number: " + saved.getNext());
+        }
+        runner.setSeed(saved.getSeed());
+        start = saved.getBest();
+        first = (int) saved.getNext();
+        return this;
+    }
+
+    /**
+     * @param batch trials run between two checks of the stop conditions
+     * @return this scheduler
+     */
+    public TrialScheduler setBatch(int batch) {
+        this.batch = Math.max(1, batch);
+        return this;
+    }
+
+    /**
+     * @return trials needed for Karger's bound to reach the target probability
+     */
+    public long boundTrials() {
+        double n = Math.max(numVertices, 2);
+        double p = 2.0 / (n * (n - 1));
+        if (p >= 1) {
+            return 1;
+        }
+        return (long) Math.ceil(Math.log(1 - target) / Math.log1p(-p));
+    }
+
+    /**
+     * @return hits of the best cut needed to stop by rediscovery
+     */
+    public long rediscoveryHits() {
+        return (long) Math.ceil(-Math.log(1 - target));
+    }
+
+    /**
+     * Runs batches of trials until a stop condition holds.
+     * @return best cut of all the completed trials
+     */
+    public CutResult run() {
+        long deadline = (timeoutNanos > 0) ? System.nanoTime() + timeoutNanos : 0;
+        long bound = boundTrials();
+        long hitsNeeded = rediscoveryHits();
+
+        CutResult best = start;
+        int next = first;
+        // State after the last batch that ran all its trials, the only one worth saving
+        CutResult whole = best;
+        int wholeNext = next;
+        long saved = System.nanoTime();
+        while (true) {
+            if (cancelled != null && cancelled.getAsBoolean()) {
+                stop = Stop.CANCELLED;
+                break;
+            }
+            if (best.getWeight() <= lowerBound) {
+                stop = Stop.LOWER_BOUND;
+                break;
+            }
+            if (kargerBound && best.getTrials() >= bound) {
+                stop = Stop.BOUND;
+                break;
+            }
+            if (rediscovery && best.getHits() >= hitsNeeded) {
+                stop = Stop.REDISCOVERY;
+                break;
+            }
+            if (next >= maxTrials) {
+                stop = Stop.TRIALS;
+                break;
+            }
+            if (deadline != 0 && System.nanoTime() - deadline >= 0) {
+                stop = Stop.DEADLINE;
+                break;
+            }
+            int to = (int) Math.min((long) next + batch, maxTrials);
+            CutResult batchBest = runner.run(next, to, deadline, cancelled);
+            boolean improved = batchBest.getWeight() < best.getWeight();
+            best = best.reduce(batchBest);
+            if (batchBest.getTrials() == to - next) {
+                whole = best;
+                wholeNext = to;
+            }
+            next = to;
+            if (improved && progress != null) {
+                progress.accept(best);
+            }
+            if (checkpoint != null && System.nanoTime() - saved >= checkpointNanos) {
+                save(whole, wholeNext);
+                saved = System.nanoTime();
+            }
+        }
+        if (checkpoint != null) {
+            // Trials of a batch cut short run again after resuming
+            save(whole, wholeNext);
+        }
+        return best;
+    }
+
+    /* A failed checkpoint only costs the trials since the previous one, the schedule goes on */
+    private void save(CutResult best, int next) {
+        try {
+            new Checkpoint(runner.getSeed(), fingerprint, next, best).write(checkpoint);
+        } catch (IOException e) {
+            System.err.println("Unable to write checkpoint " + checkpoint + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * @return why the last run stopped, null before the first run
+     */
+    public Stop getStop() {
+        return stop;
+    }
+}
@@ -0,0 +1,111 @@
+package src.com.karger.karger;
+
+import src.com.karger.utils.FenwickTree;
+import src.com.karger.utils.RandomGenerator;
+import src.com.karger.utils.StreamRandom;
+import src.com.karger.utils.UnionFind;
+
+/**
+ * Scratch state of the contractions run by one thread: the union-find, the
+ * edge pool, the Fenwick trees, the permutation keys, the vertex degrees and
+ * the random stream.
+ * Arrays only grow, so once a thread has seen its largest graph a sampling
+ * or permutation trial allocates nothing, and the contraction of the last
+ * graph is kept so repeated trials over the same graph reuse it as is.
+ * Coalesced trials still allocate their neighbour maps.
+ *
+ * A workspace belongs to a single thread, and a contraction built on it is
+ * only valid until the next one asks the workspace for arrays.
+ */
+public class TrialWorkspace {
+
+    private static final ThreadLocal<TrialWorkspace> LOCAL = ThreadLocal.withInitial(TrialWorkspace::new);
+
+    private UnionFind components;
+    private int[] pool;
+    private double[] keys;
+    private FenwickTree sampler;
+    private FenwickTree vertexSampler;
+    private double[] degrees;
+    private final StreamRandom random = new StreamRandom();
+    private Contraction contraction;
+
+    /**
+     * @return workspace of the calling thread
+     */
+    public static TrialWorkspace local() {
+        return LOCAL.get();
+    }
+
+    /**
+     * Contraction over the given graph backed by this workspace, the same
+     * instance as the last call when the graph and strategy did not change.
+     * Its deadline and cancellation are cleared.
+     * @param graph graph to contract
+     * @param strategy how edges are ordered
+     * @return contraction ready for trials
+     */
+    public Contraction contraction(CompactGraph graph, ContractionStrategy strategy) {
+        if (contraction == null || contraction.getGraph() != graph || contraction.getStrategy() != strategy) {
+            contraction = new Contraction(graph, strategy, this);
+        }
+        contraction.setDeadline(0);
+        contraction.setCancellation(null);
+        return contraction;
+    }
+
+    /**
+     * Moves the random stream of this workspace onto {@link RandomGenerator#stream}(seed, index).
+     * @param seed master seed of the run
+     * @param index number of the stream
+     * @return random stream drawing the same numbers as a fresh stream would
+     */
+    public StreamRandom stream(long seed, long index) {
+        return random.setSeed(RandomGenerator.streamSeed(seed, index));
+    }
+
+    UnionFind components(int n) {
+        if (components == null || components.capacity() < n) {
+            components = new UnionFind(n);
+        }
+        components.reset(n);
+        return components;
+    }
+
+    int[] pool(int m) {
+        if (pool == null || pool.length < m) {
+            pool = new int[m];
+        }
+        return pool;
+    }
+
+    double[] keys(int m) {
+        if (keys == null || keys.length < m) {
+            keys = new double[m];
+        }
+        return keys;
+    }
+
+    double[] degrees(int n) {
+        if (degrees == null || degrees.length < n) {
+            degrees = new double[n];
+        }
+        return degrees;
+    }
+
+    FenwickTree vertexSampler(int n) {
+        if (vertexSampler == null || vertexSampler.capacity() < n) {
+            vertexSampler = new FenwickTree(n);
+        }
+        vertexSampler.resize(n);
+        return vertexSampler;
+    }
+
+    FenwickTree sampler(int m) {
+        if (sampler == null || sampler.capacity() < m) {
+            sampler = new FenwickTree(m);
+        }
+        sampler.resize(m);
+        return sampler;
+    }
+}
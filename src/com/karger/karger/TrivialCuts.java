@@ -0,0 +1,86 @@
+package src.com.karger.karger;
+
+import src.com.karger.utils.UnionFind;
+
+import java.util.BitSet;
+
+/**
+ * Cuts found in linear time before any solver runs: the empty cut of a
+ * disconnected graph and the lightest singleton cut. The first is the
+ * answer whenever it exists, the second is always an upper bound and is
+ * the answer on graphs of two vertices.
+ */
+public class TrivialCuts {
+
+    private TrivialCuts() {
+    }
+
+    /**
+     * @param graph graph to cut
+     * @return minimum cut if it is trivial, null if a solver is needed
+     */
+    public static CutResult of(CompactGraph graph) {
+        int n = graph.getNumVertices();
+        if (n < 2) {
+            return new CutResult(Double.POSITIVE_INFINITY, new BitSet(), 1, 1);
+        }
+        CutResult cut = disconnected(graph);
+        if (cut == null && n == 2) {
+            cut = lightestDegree(graph);
+        }
+        return cut;
+    }
+
+    /**
+     * Connected components with a union-find over the edges, almost O(E).
+     * @param graph graph to cut
+     * @return cut of weight 0 around the component of vertex 0, null if the graph is connected
+     */
+    public static CutResult disconnected(CompactGraph graph) {
+        int n = graph.getNumVertices();
+        UnionFind components = new UnionFind(n);
+        for (int e = 0; e < graph.getNumEdges() && components.getComponents() > 1; e++) {
+            components.union(graph.getSrc(e), graph.getDst(e));
+        }
+        if (components.getComponents() <= 1) {
+            return null;
+        }
+        int root = components.find(0);
+        BitSet side = new BitSet(n);
+        for (int v = 0; v < n; v++) {
+            if (components.find(v) == root) {
+                side.set(v);
+            }
+        }
+        return new CutResult(0, side, 1, 1);
+    }
+
+    /**
+     * @param graph graph with at least two vertices
+     * @return cut around the vertex of lightest weighted degree, an upper bound of the minimum cut
+     */
+    public static CutResult lightestDegree(CompactGraph graph) {
+        int n = graph.getNumVertices();
+        double[] degree = new double[n];
+        for (int e = 0; e < graph.getNumEdges(); e++) {
+            if (graph.getSrc(e) != graph.getDst(e)) {
+                degree[graph.getSrc(e)] += graph.getWeight(e);
+                degree[graph.getDst(e)] += graph.getWeight(e);
+            }
+        }
+        int lightest = 0;
+        for (int v = 1; v < n; v++) {
+            if (degree[v] < degree[lightest]) {
+                lightest = v;
+            }
+        }
+        BitSet side = new BitSet(n);
+        if (lightest == 0) {
+            side.set(0);
+        } else {
+            side.set(0, n);
+            side.clear(lightest);
+        }
+        return new CutResult(degree[lightest], side, 1, 1);
+    }
+}
@@ -0,0 +1,103 @@
+package src.com.karger.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Sink turning every measure into a custom Flight Recorder event, so trials,
+ * runs and loads show up next to GC and allocation data in a recording.
+ * Events are only built while a recording has them enabled.
+ */
+public class JfrMetricsSink implements MetricsSink {
+
+    private static final EventType TRIAL = EventType.getEventType(TrialEvent.class);
+    private static final EventType RUN = EventType.getEventType(RunEvent.class);
+    private static final EventType LOAD = EventType.getEventType(LoadEvent.class);
+
+    @Override
+    public void trial(long nanos, long contractions, long selfLoops, long samples) {
+        if (!TRIAL.isEnabled()) {
+            return;
+        }
+        TrialEvent event = new TrialEvent();
+        event.latency = nanos;
+        event.contractions = contractions;
+        event.selfLoops = selfLoops;
+        event.samples = samples;
+        event.commit();
+    }
+
+    @Override
+    public void run(String solver, long trials, long nanos) {
+        if (!RUN.isEnabled()) {
+            return;
+        }
+        RunEvent event = new RunEvent();
+        event.solver = solver;
+        event.trials = trials;
+        event.elapsed = nanos;
+        event.commit();
+    }
+
+    @Override
+    public void graphLoaded(String source, long bytes, long edges, long nanos) {
+        if (!LOAD.isEnabled()) {
+            return;
+        }
+        LoadEvent event = new LoadEvent();
+        event.source = source;
+        event.bytes = bytes;
+        event.edges = edges;
+        event.elapsed = nanos;
+        event.commit();
+    }
+
+    @Name("karger.Trial")
+    @Label("Contraction Trial")
+    @Category("Karger")
+    static class TrialEvent extends Event {
+        @Label("Latency")
+        @Timespan(Timespan.NANOSECONDS)
+        long latency;
+        @Label("Contractions")
+        long contractions;
+        @Label("Self-loops")
+        long selfLoops;
+        @Label("Samples")
+        long samples;
+    }
+
+    @Name("karger.Run")
+    @Label("Solver Run")
+    @Category("Karger")
+    static class RunEvent extends Event {
+        @Label("Solver")
+        String solver;
+        @Label("Trials")
+        long trials;
+        @Label("Elapsed")
+        @Timespan(Timespan.NANOSECONDS)
+        long elapsed;
+    }
+
+    @Name("karger.GraphLoad")
+    @Label("Graph Load")
+    @Category("Karger")
+    static class LoadEvent extends Event {
+        @Label("Source")
+        String source;
+        @Label("Bytes")
+        @DataAmount
+        long bytes;
+        @Label("Edges")
+        long edges;
+        @Label("Elapsed")
+        @Timespan(Timespan.NANOSECONDS)
+        long elapsed;
+    }
+}
@@ -0,0 +1,164 @@
+package src.com.karger.metrics;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sink keeping running totals and a trial latency histogram, readable as an
+ * MBean from jconsole or any JMX client once {@link #register()}ed.
+ */
+public class JmxMetricsSink implements MetricsSink, JmxMetricsSinkMBean {
+
+    /**
+     * Name the sink is registered under by default.
+     */
+    public static final String NAME = "src.com.karger:type=Metrics";
+
+    private final LongAdder trials = new LongAdder();
+    private final LongAdder contractions = new LongAdder();
+    private final LongAdder selfLoops = new LongAdder();
+    private final LongAdder samples = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder runs = new LongAdder();
+    private final LongAdder graphs = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder edges = new LongAdder();
+    private volatile long since = System.nanoTime();
+
+    /**
+     * Registers this sink in the platform MBean server under {@link #NAME}.
+     * @return this sink
+     * @throws JMException if the name is taken or the server refuses the bean
+     */
+    public JmxMetricsSink register() throws JMException {
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(NAME));
+        return this;
+    }
+
+    @Override
+    public void trial(long nanos, long contractions, long selfLoops, long samples) {
+        trials.increment();
+        this.contractions.add(contractions);
+        this.selfLoops.add(selfLoops);
+        this.samples.add(samples);
+        latency.record(nanos);
+    }
+
+    @Override
+    public void run(String solver, long trials, long nanos) {
+        runs.increment();
+    }
+
+    @Override
+    public void graphLoaded(String source, long bytes, long edges, long nanos) {
+        graphs.increment();
+        this.bytes.add(bytes);
+        this.edges.add(edges);
+    }
+
+    @Override
+    public long getTrials() {
+        return trials.sum();
+    }
+
+    @Override
+    public double getTrialsPerSecond() {
+        return rate(trials.sum());
+    }
+
+    @Override
+    public long getContractions() {
+        return contractions.sum();
+    }
+
+    @Override
+    public double getContractionsPerSecond() {
+        return rate(contractions.sum());
+    }
+
+    @Override
+    public long getSelfLoops() {
+        return selfLoops.sum();
+    }
+
+    @Override
+    public long getSamples() {
+        return samples.sum();
+    }
+
+    @Override
+    public double getTrialLatencyMean() {
+        return latency.mean();
+    }
+
+    @Override
+    public long getTrialLatencyP50() {
+        return latency.percentile(50);
+    }
+
+    @Override
+    public long getTrialLatencyP99() {
+        return latency.percentile(99);
+    }
+
+    @Override
+    public long getTrialLatencyMax() {
+        return latency.max();
+    }
+
+    @Override
+    public long getRuns() {
+        return runs.sum();
+    }
+
+    @Override
+    public long getGraphsLoaded() {
+        return graphs.sum();
+    }
+
+    @Override
+    public long getBytesLoaded() {
+        return bytes.sum();
+    }
+
+    @Override
+    public long getEdgesLoaded() {
+        return edges.sum();
+    }
+
+    @Override
+    public void reset() {
+        trials.reset();
+        contractions.reset();
+        selfLoops.reset();
+        samples.reset();
+        latency.reset();
+        runs.reset();
+        graphs.reset();
+        bytes.reset();
+        edges.reset();
+        since = System.nanoTime();
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    private double rate(long count) {
+        double seconds = (System.nanoTime() - since) / 1e9;
+        return (seconds > 0) ? count / seconds : 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT,
+                "Trials: %d (%.1f/s), Contractions: %d (%.1f/s), Self-loops: %d, Samples: %d, "
+                        + "Trial latency us: mean %.1f, p50 %.1f, p99 %.1f, max %.1f, Loaded: %d bytes, %d edges",
+                getTrials(), getTrialsPerSecond(), getContractions(), getContractionsPerSecond(),
+                getSelfLoops(), getSamples(), getTrialLatencyMean() / 1e3, getTrialLatencyP50() / 1e3,
+                getTrialLatencyP99() / 1e3, getTrialLatencyMax() / 1e3, getBytesLoaded(), getEdgesLoaded());
+    }
+}
@@ -0,0 +1,38 @@
+package src.com.karger.metrics;
+
+/**
+ * Management interface of {@link JmxMetricsSink}. Rates are averages since the
+ * sink was created or last reset, latencies are in nanoseconds.
+ */
+public interface JmxMetricsSinkMBean {
+
+    long getTrials();
+
+    double getTrialsPerSecond();
+
+    long getContractions();
+
+    double getContractionsPerSecond();
+
+    long getSelfLoops();
+
+    long getSamples();
+
+    double getTrialLatencyMean();
+
+    long getTrialLatencyP50();
+
+    long getTrialLatencyP99();
+
+    long getTrialLatencyMax();
+
+    long getRuns();
+
+    long getGraphsLoaded();
+
+    long getBytesLoaded();
+
+    long getEdgesLoaded();
+
+    void reset();
+}
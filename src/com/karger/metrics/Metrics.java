@@ -0,0 +1,65 @@
+package src.com.karger.metrics;
+
+/**
+ * Global switch of the instrumentation. Hot paths read {@link #sink()} once
+ * per batch of work and only time anything when {@link #isEnabled()}, so with
+ * metrics disabled, the default, they cost a field read per batch.
+ */
+public final class Metrics {
+
+    private static volatile MetricsSink sink = MetricsSink.NONE;
+
+    private Metrics() {
+    }
+
+    /**
+     * Sends every measure to all the given sinks from now on.
+     * @param sinks sinks to install, replacing the current ones
+     */
+    public static void enable(MetricsSink... sinks) {
+        if (sinks.length == 0) {
+            sink = MetricsSink.NONE;
+        } else if (sinks.length == 1) {
+            sink = sinks[0];
+        } else {
+            MetricsSink[] all = sinks.clone();
+            sink = new MetricsSink() {
+                @Override
+                public void trial(long nanos, long contractions, long selfLoops, long samples) {
+                    for (MetricsSink s : all) {
+                        s.trial(nanos, contractions, selfLoops, samples);
+                    }
+                }
+
+                @Override
+                public void run(String solver, long trials, long nanos) {
+                    for (MetricsSink s : all) {
+                        s.run(solver, trials, nanos);
+                    }
+                }
+
+                @Override
+                public void graphLoaded(String source, long bytes, long edges, long nanos) {
+                    for (MetricsSink s : all) {
+                        s.graphLoaded(source, bytes, edges, nanos);
+                    }
+                }
+            };
+        }
+    }
+
+    public static void disable() {
+        sink = MetricsSink.NONE;
+    }
+
+    public static boolean isEnabled() {
+        return sink != MetricsSink.NONE;
+    }
+
+    /**
+     * @return current sink, {@link MetricsSink#NONE} while disabled
+     */
+    public static MetricsSink sink() {
+        return sink;
+    }
+}
@@ -0,0 +1,46 @@
+package src.com.karger.metrics;
+
+/**
+ * Receives what the solvers and loaders measure while they run. Every method
+ * does nothing by default, so a sink only overrides what it cares about.
+ * Calls come from many threads at once and must not block.
+ *
+ * Sinks are installed with {@link Metrics#enable}. While none is, the hot
+ * paths skip the clock reads and never call into here.
+ */
+public interface MetricsSink {
+
+    /**
+     * Sink that drops everything, installed while metrics are disabled.
+     */
+    MetricsSink NONE = new MetricsSink() {};
+
+    /**
+     * One contraction trial completed.
+     * @param nanos wall time of the trial
+     * @param contractions edges contracted, merging two super vertices
+     * @param selfLoops picked edges discarded because both ends already were merged
+     * @param samples edges drawn from the sampler, including draws retried after a resync
+     */
+    default void trial(long nanos, long contractions, long selfLoops, long samples) {
+    }
+
+    /**
+     * A solver finished a run.
+     * @param solver name of the algorithm
+     * @param trials trials or repetitions completed by the run
+     * @param nanos wall time of the run
+     */
+    default void run(String solver, long trials, long nanos) {
+    }
+
+    /**
+     * A graph was read from a file.
+     * @param source where the graph was read from
+     * @param bytes size of the input
+     * @param edges edges of the graph read
+     * @param nanos wall time of the load
+     */
+    default void graphLoaded(String source, long bytes, long edges, long nanos) {
+    }
+}
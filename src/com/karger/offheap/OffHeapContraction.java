@@ -0,0 +1,180 @@
+package src.com.karger.offheap;
+
+import src.com.karger.karger.CutResult;
+import src.com.karger.utils.StreamRandom;
+
+import static src.com.karger.utils.RandomGenerator.streamSeed;
+
+import java.util.BitSet;
+import java.util.random.RandomGenerator;
+
+/**
+ * Karger trials run directly on an {@link OffHeapGraph}. The pool of live
+ * edges, the Fenwick tree of weights and the union-find all live off heap
+ * and are reused by every trial, so trials put no pressure on the GC.
+ *
+ * Steps mirror the edge sampling strategy of
+ * {@link src.com.karger.karger.Contraction}: unweighted graphs draw from the
+ * pool of edges not picked yet, weighted graphs through the Fenwick tree. On
+ * graphs of fewer than 2^31 edges a stream gives the same cut as there.
+ */
+public class OffHeapContraction {
+
+    private final OffHeapGraph graph;
+    private final OffHeapUnionFind components;
+    private final OffHeapLongArray pool;
+    private final OffHeapFenwickTree sampler;
+    private int contractions;
+    private long selfLoops;
+
+    /**
+     * @param graph graph to contract, scratch space of 8 (unweighted) or 16 (weighted) bytes per edge is allocated off heap
+     */
+    public OffHeapContraction(OffHeapGraph graph) {
+        this.graph = graph;
+        this.components = new OffHeapUnionFind(graph.getNumVertices());
+        this.pool = graph.isWeighted() ? null : new OffHeapLongArray(graph.getNumEdges());
+        this.sampler = graph.isWeighted() ? new OffHeapFenwickTree(graph.getNumEdges()) : null;
+    }
+
+    /**
+     * Runs trials one after the other, trial i with stream i of the seed.
+     * @param seed master seed
+     * @param from first trial number
+     * @param to trial number to stop before
+     * @return best cut of the trials
+     */
+    public CutResult run(long seed, long from, long to) {
+        StreamRandom rnd = new StreamRandom(0);
+        double best = Double.POSITIVE_INFINITY;
+        BitSet side = new BitSet();
+        long hits = 0;
+        long trial = -1;
+        for (long i = from; i < to; i++) {
+            rnd.setSeed(streamSeed(seed, i));
+            double cut = trial(rnd);
+            int cmp = Double.compare(cut, best);
+            if (cmp < 0) {
+                best = cut;
+                side = side();
+                hits = 1;
+                trial = i;
+            } else if (cmp == 0) {
+                hits++;
+            }
+        }
+        return new CutResult(best, side, hits, Math.max(0, to - from), trial);
+    }
+
+    /**
+     * Runs one full contraction down to two super vertices.
+     * @param rnd random stream used to pick edges
+     * @return weight of the edges crossing the resulting cut
+     */
+    public double trial(RandomGenerator rnd) {
+        components.reset();
+        int vertices = graph.isWeighted() ? contractWeighted(rnd) : contractUniform(rnd);
+        contractions = graph.getNumVertices() - vertices;
+        return cutWeight();
+    }
+
+    private int contractUniform(RandomGenerator rnd) {
+        long live = graph.getNumEdges();
+        for (long i = 0; i < live; i++) {
+            pool.set(i, i);
+        }
+        int vertices = graph.getNumVertices();
+        long loops = 0;
+        while (vertices > 2 && live > 0) {
+            // Same draws as the heap engine while the pool fits an int
+            long k = (live <= Integer.MAX_VALUE) ? rnd.nextInt((int) live) : rnd.nextLong(live);
+            long e = pool.get(k);
+            pool.set(k, pool.get(--live));
+            if (components.union(graph.getSrc(e), graph.getDst(e))) {
+                vertices--;
+            } else {
+                loops++;
+            }
+        }
+        selfLoops = loops;
+        return vertices;
+    }
+
+    private int contractWeighted(RandomGenerator rnd) {
+        sampler.build(graph.weights());
+        int vertices = graph.getNumVertices();
+        long loops = 0;
+        while (vertices > 2) {
+            double total = sampler.total();
+            if (!(total > 0)) {
+                break;
+            }
+            long e = sampler.find(rnd.nextDouble() * total);
+            if (sampler.get(e) <= 0) {
+                // Rounding from the updates led to a removed edge, resync the sums
+                sampler.rebuild();
+                continue;
+            }
+            sampler.set(e, 0);
+            if (components.union(graph.getSrc(e), graph.getDst(e))) {
+                vertices--;
+            } else {
+                loops++;
+            }
+        }
+        selfLoops = loops;
+
+        // Only edges of weight 0 can still join super vertices, any of them is as good
+        for (long e = 0; e < graph.getNumEdges() && vertices > 2; e++) {
+            if (components.union(graph.getSrc(e), graph.getDst(e))) {
+                vertices--;
+            }
+        }
+        return vertices;
+    }
+
+    /**
+     * @return weight of the edges whose ends are in different super vertices
+     */
+    public double cutWeight() {
+        double cut = 0;
+        for (long e = 0; e < graph.getNumEdges(); e++) {
+            if (!components.connected(graph.getSrc(e), graph.getDst(e))) {
+                cut += graph.getWeight(e);
+            }
+        }
+        return cut;
+    }
+
+    /**
+     * @return vertices on the same side as vertex 0 after the last trial
+     */
+    public BitSet side() {
+        int n = graph.getNumVertices();
+        BitSet side = new BitSet(n);
+        if (n == 0) {
+            return side;
+        }
+        int root = components.find(0);
+        for (int v = 0; v < n; v++) {
+            if (components.find(v) == root) {
+                side.set(v);
+            }
+        }
+        return side;
+    }
+
+    /**
+     * @return super vertices merged by the last trial
+     */
+    public int getContractions() {
+        return contractions;
+    }
+
+    /**
+     * @return edges the last trial picked and dropped as self-loops
+     */
+    public long getSelfLoops() {
+        return selfLoops;
+    }
+}
@@ -0,0 +1,41 @@
+package src.com.karger.offheap;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Fixed length array of double values outside the heap, indexed by long, so it
+ * can hold more than 2^31 elements and is never moved or scanned by the GC.
+ * The memory is mapped by Pages, outside the direct memory limit, and freed
+ * when the array becomes unreachable.
+ */
+public final class OffHeapDoubleArray {
+
+    private static final int SHIFT = Pages.PAGE_SHIFT - 3;
+    private static final long MASK = (1L << SHIFT) - 1;
+
+    private final ByteBuffer[] pages;
+    private final long length;
+
+    /**
+     * @param length number of elements, all 0
+     */
+    public OffHeapDoubleArray(long length) {
+        if (length < 0) {
+            throw new IllegalArgumentException("Negative length: " + length);
+        }
+        this.length = length;
+        this.pages = Pages.allocate(length << 3);
+    }
+
+    public double get(long i) {
+        return pages[(int) (i >>> SHIFT)].getDouble((int) ((i & MASK) << 3));
+    }
+
+    public void set(long i, double value) {
+        pages[(int) (i >>> SHIFT)].putDouble((int) ((i & MASK) << 3), value);
+    }
+
+    public long length() {
+        return length;
+    }
+}
@@ -0,0 +1,97 @@
+package src.com.karger.offheap;
+
+/**
+ * {@link src.com.karger.utils.FenwickTree} over long indices with its
+ * weights and sums outside the heap. Same sums in the same order, so it
+ * samples exactly like the heap tree given the same random values.
+ */
+public class OffHeapFenwickTree {
+
+    private final long size;
+    private final long topBit;
+    private final OffHeapDoubleArray values;
+    // 1 based, tree[i] holds the sum of values in (i - lowbit(i), i]
+    private final OffHeapDoubleArray tree;
+
+    /**
+     * @param size number of weights held by the tree
+     */
+    public OffHeapFenwickTree(long size) {
+        this.size = size;
+        this.topBit = (size == 0) ? 0 : Long.highestOneBit(size);
+        this.values = new OffHeapDoubleArray(size);
+        this.tree = new OffHeapDoubleArray(size + 1);
+    }
+
+    /**
+     * Loads the weights and builds the tree in O(n).
+     * @param weights weights to load, null for all 1
+     */
+    public void build(OffHeapDoubleArray weights) {
+        for (long i = 0; i < size; i++) {
+            values.set(i, (weights != null) ? weights.get(i) : 1);
+        }
+        rebuild();
+    }
+
+    /**
+     * Rebuilds the internal sums from the current weights, dropping any
+     * rounding error accumulated by updates.
+     */
+    public void rebuild() {
+        tree.set(0, 0);
+        for (long i = 1; i <= size; i++) {
+            tree.set(i, values.get(i - 1));
+        }
+        for (long i = 1; i <= size; i++) {
+            long parent = i + (i & -i);
+            if (parent <= size) {
+                tree.set(parent, tree.get(parent) + tree.get(i));
+            }
+        }
+    }
+
+    public double get(long i) {
+        return values.get(i);
+    }
+
+    /**
+     * @param i index of the weight
+     * @param weight new value of the weight
+     */
+    public void set(long i, double weight) {
+        double delta = weight - values.get(i);
+        values.set(i, values.get(i) + delta);
+        for (long k = i + 1; k <= size; k += k & -k) {
+            tree.set(k, tree.get(k) + delta);
+        }
+    }
+
+    public double total() {
+        double sum = 0;
+        for (long k = size; k > 0; k -= k & -k) {
+            sum += tree.get(k);
+        }
+        return sum;
+    }
+
+    /**
+     * @param target value in [0, total)
+     * @return first index whose prefix sum, itself included, is greater than target
+     */
+    public long find(double target) {
+        long pos = 0;
+        for (long bit = topBit; bit > 0; bit >>= 1) {
+            long next = pos + bit;
+            if (next <= size && tree.get(next) <= target) {
+                pos = next;
+                target -= tree.get(next);
+            }
+        }
+        return Math.min(pos, size - 1);
+    }
+
+    public long size() {
+        return size;
+    }
+}
@@ -0,0 +1,134 @@
+package src.com.karger.offheap;
+
+import src.com.karger.io.MappedGraph;
+import src.com.karger.karger.CompactGraph;
+
+/**
+ * Edge list like {@link CompactGraph} with its arrays outside the heap and
+ * long edge ids, for graphs past 2^31 edges or too large for the GC to scan.
+ * Unweighted graphs store no weights at all, 8 bytes per edge instead of 16.
+ * Edges are written once with {@link #setEdge} and only read afterwards.
+ * The arrays map a temporary file in java.io.tmpdir, so they are not capped
+ * by -Xmx or -XX:MaxDirectMemorySize, but that file system needs room for
+ * them, best a tmpfs such as /dev/shm.
+ */
+public class OffHeapGraph {
+
+    private final int numVertices;
+    private final long numEdges;
+    private final boolean weighted;
+    private final OffHeapIntArray src;
+    private final OffHeapIntArray dst;
+    private final OffHeapDoubleArray weight;
+
+    /**
+     * Graph of the given size whose edges are all still to be set.
+     * @param numVertices number of vertices
+     * @param numEdges number of edges
+     * @param weighted whether edges carry weights, 1 otherwise
+     */
+    public OffHeapGraph(int numVertices, long numEdges, boolean weighted) {
+        this.numVertices = numVertices;
+        this.numEdges = numEdges;
+        this.weighted = weighted;
+        this.src = new OffHeapIntArray(numEdges);
+        this.dst = new OffHeapIntArray(numEdges);
+        this.weight = weighted ? new OffHeapDoubleArray(numEdges) : null;
+    }
+
+    /**
+     * @param graph graph to copy
+     * @return off-heap copy of the graph
+     */
+    public static OffHeapGraph of(CompactGraph graph) {
+        OffHeapGraph copy = new OffHeapGraph(graph.getNumVertices(), graph.getNumEdges(), graph.isWeighted());
+        for (int e = 0; e < graph.getNumEdges(); e++) {
+            copy.setEdge(e, graph.getSrc(e), graph.getDst(e), graph.getWeight(e));
+        }
+        return copy;
+    }
+
+    /**
+     * Copies a mapped graph file straight off heap, each edge once from its lower end.
+     * @param mapped graph file mapped by GraphFile.map
+     * @return off-heap copy of the graph
+     */
+    public static OffHeapGraph of(MappedGraph mapped) {
+        int n = mapped.getNumVertices();
+        long edges = 0;
+        for (int v = 0; v < n; v++) {
+            for (long i = mapped.offset(v); i < mapped.offset(v + 1); i++) {
+                if (mapped.neighbour(i) > v) {
+                    edges++;
+                }
+            }
+        }
+        OffHeapGraph copy = new OffHeapGraph(n, edges, mapped.isWeighted());
+        long e = 0;
+        for (int v = 0; v < n; v++) {
+            for (long i = mapped.offset(v); i < mapped.offset(v + 1); i++) {
+                int u = mapped.neighbour(i);
+                if (u > v) {
+                    copy.setEdge(e++, v, u, mapped.weight(i));
+                }
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * @param e edge id
+     * @param a one end
+     * @param b other end
+     * @param w weight, ignored by unweighted graphs
+     */
+    public void setEdge(long e, int a, int b, double w) {
+        src.set(e, a);
+        dst.set(e, b);
+        if (weighted) {
+            weight.set(e, w);
+        }
+    }
+
+    public int getNumVertices() {
+        return numVertices;
+    }
+
+    public long getNumEdges() {
+        return numEdges;
+    }
+
+    public boolean isWeighted() {
+        return weighted;
+    }
+
+    public int getSrc(long e) {
+        return src.get(e);
+    }
+
+    public int getDst(long e) {
+        return dst.get(e);
+    }
+
+    /**
+     * @param e edge id
+     * @return weight of the edge, 1 for unweighted graphs
+     */
+    public double getWeight(long e) {
+        return weighted ? weight.get(e) : 1;
+    }
+
+    /**
+     * @return bytes held off heap by the edge arrays
+     */
+    public long getBytes() {
+        return numEdges * (weighted ? 16 : 8);
+    }
+
+    /*
+     * Weights for the samplers, null when every edge weighs 1
+     */
+    OffHeapDoubleArray weights() {
+        return weight;
+    }
+}
@@ -0,0 +1,83 @@
+package src.com.karger.offheap;
+
+/**
+ * {@link src.com.karger.utils.UnionFind} with its parents and sizes outside
+ * the heap, for contractions of off-heap graphs.
+ */
+public class OffHeapUnionFind {
+
+    private final OffHeapIntArray parent;
+    private final OffHeapIntArray size;
+    private final int n;
+    private int components;
+
+    /**
+     * @param n number of elements, each its own component
+     */
+    public OffHeapUnionFind(int n) {
+        this.n = n;
+        this.parent = new OffHeapIntArray(n);
+        this.size = new OffHeapIntArray(n);
+        reset();
+    }
+
+    /**
+     * Puts every element back into its own component.
+     */
+    public void reset() {
+        for (int i = 0; i < n; i++) {
+            parent.set(i, i);
+            size.set(i, 1);
+        }
+        components = n;
+    }
+
+    /**
+     * @param x element
+     * @return root of its component, halving the path on the way
+     */
+    public int find(int x) {
+        int p;
+        while ((p = parent.get(x)) != x) {
+            int grand = parent.get(p);
+            parent.set(x, grand);
+            x = grand;
+        }
+        return x;
+    }
+
+    /**
+     * Joins the components of a and b, smaller under larger.
+     * @param a first element
+     * @param b second element
+     * @return false if both elements already were in the same component
+     */
+    public boolean union(int a, int b) {
+        int ra = find(a);
+        int rb = find(b);
+        if (ra == rb) {
+            return false;
+        }
+        if (size.get(ra) < size.get(rb)) {
+            int tmp = ra;
+            ra = rb;
+            rb = tmp;
+        }
+        parent.set(rb, ra);
+        size.set(ra, size.get(ra) + size.get(rb));
+        components--;
+        return true;
+    }
+
+    public boolean connected(int a, int b) {
+        return find(a) == find(b);
+    }
+
+    public int getComponents() {
+        return components;
+    }
+
+    public int size() {
+        return n;
+    }
+}
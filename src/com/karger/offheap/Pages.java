@@ -0,0 +1,69 @@
+package src.com.karger.offheap;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Pages of up to 1 GiB each, as one buffer can not go past 2^31 bytes.
+ * Arrays split their long indices into a page and an offset.
+ *
+ * The pages map a temporary file in java.io.tmpdir rather than coming from
+ * ByteBuffer.allocateDirect, whose total is capped by -XX:MaxDirectMemorySize
+ * and so by -Xmx unless that flag is given. A mapping is only bounded by the
+ * address space and what the file system can hold, and with java.io.tmpdir on
+ * a tmpfs such as /dev/shm it never touches the disk. The file is unlinked
+ * as soon as it is mapped, and its memory is freed when the pages become
+ * unreachable.
+ */
+final class Pages {
+
+    static final int PAGE_SHIFT = 30;
+
+    private Pages() {
+    }
+
+    /**
+     * @param bytes total size, zeroed
+     * @return pages covering it, all full but the last
+     * @throws UncheckedIOException if the temporary file can not be created or mapped
+     */
+    static ByteBuffer[] allocate(long bytes) {
+        long pageBytes = 1L << PAGE_SHIFT;
+        int count = (int) ((bytes + pageBytes - 1) >>> PAGE_SHIFT);
+        ByteBuffer[] pages = new ByteBuffer[Math.max(count, 1)];
+        try {
+            Path file = Files.createTempFile("karger-offheap", ".pages");
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                // A mapping past the end grows the file, sparse, so pages read as 0
+                for (int i = 0; i < pages.length; i++) {
+                    long size = Math.max(Math.min(pageBytes, bytes - i * pageBytes), 0);
+                    pages[i] = channel.map(FileChannel.MapMode.READ_WRITE, i * pageBytes, size)
+                            .order(ByteOrder.nativeOrder());
+                }
+            } finally {
+                unlink(file);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to map " + bytes + " bytes off heap: " + e.getMessage(), e);
+        }
+        return pages;
+    }
+
+    /*
+     * Removes the file while it is mapped, or at exit where a mapped file
+     * can not be removed
+     */
+    private static void unlink(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            file.toFile().deleteOnExit();
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package src.com.karger.utils;
+
+/**
+ * Binary indexed tree over non negative weights. Supports point updates and
+ * picking the index whose prefix sum interval contains a given value, both in
+ * O(log n), which is what weighted edge sampling needs.
+ */
+public class FenwickTree {
+
+    private int size;
+    private int topBit;
+    private final double[] values;
+    // 1 based, tree[i] holds the sum of values in (i - lowbit(i), i]
+    private final double[] tree;
+
+    /**
+     * @param size number of weights held by the tree
+     */
+    public FenwickTree(int size) {
+        this.size = size;
+        this.values = new double[size];
+        this.tree = new double[size + 1];
+        this.topBit = (size == 0) ? 0 : Integer.highestOneBit(size);
+    }
+
+    /**
+     * Changes the number of weights held, so one tree can be reused for any
+     * number of weights up to the size it was built with. The tree must be
+     * built again before it is read.
+     * @param size number of weights, at most {@link #capacity()}
+     */
+    public void resize(int size) {
+        if (size > values.length) {
+            throw new IllegalArgumentException("Fenwick tree of capacity " + values.length + " cannot hold " + size + " weights");
+        }
+        this.size = size;
+        this.topBit = (size == 0) ? 0 : Integer.highestOneBit(size);
+    }
+
+    /**
+     * Loads the first size weights and builds the tree in O(n), without allocating.
+     * @param weights weights to load
+     */
+    public void build(double[] weights) {
+        System.arraycopy(weights, 0, values, 0, size);
+        rebuild();
+    }
+
+    /**
+     * Rebuilds the internal sums from the current weights, dropping any
+     * rounding error accumulated by updates.
+     */
+    public void rebuild() {
+        System.arraycopy(values, 0, tree, 1, size);
+        tree[0] = 0;
+        for (int i = 1; i <= size; i++) {
+            int parent = i + (i & -i);
+            if (parent <= size) {
+                tree[parent] += tree[i];
+            }
+        }
+    }
+
+    public double get(int i) {
+        return values[i];
+    }
+
+    /**
+     * @param i index of the weight
+     * @param weight new value of the weight
+     */
+    public void set(int i, double weight) {
+        add(i, weight - values[i]);
+    }
+
+    /**
+     * @param i index of the weight
+     * @param delta amount added to the weight
+     */
+    public void add(int i, double delta) {
+        values[i] += delta;
+        for (int k = i + 1; k <= size; k += k & -k) {
+            tree[k] += delta;
+        }
+    }
+
+    /**
+     * @param i number of leading weights
+     * @return sum of the weights in [0, i)
+     */
+    public double prefix(int i) {
+        double sum = 0;
+        for (int k = i; k > 0; k -= k & -k) {
+            sum += tree[k];
+        }
+        return sum;
+    }
+
+    public double total() {
+        return prefix(size);
+    }
+
+    /**
+     * Finds the first index whose prefix sum, itself included, is greater than target,
+     * so for target uniform in [0, total) every index is found proportionally to its weight.
+     * @param target value in [0, total)
+     * @return index of the weight, size - 1 if target is not below the total
+     */
+    public int find(double target) {
+        int pos = 0;
+        for (int bit = topBit; bit > 0; bit >>= 1) {
+            int next = pos + bit;
+            if (next <= size && tree[next] <= target) {
+                pos = next;
+                target -= tree[next];
+            }
+        }
+        return Math.min(pos, size - 1);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return values.length;
+    }
+}
@@ -0,0 +1,152 @@
+package src.com.karger.utils;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing hash map from non negative int keys to double values, with
+ * linear probing and no boxing. Removals shift the following entries back, so
+ * lookups never wade through deleted markers. Entries are iterated by slot:
+ * slots in [0, capacity()) whose {@link #keyAt} is not -1 hold an entry.
+ */
+public class IntDoubleHashMap {
+
+    private static final int EMPTY = -1;
+
+    private int[] keys;
+    private double[] values;
+    private int mask;
+    private int size;
+
+    /**
+     * @param expected number of entries to hold before growing
+     */
+    public IntDoubleHashMap(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(4, expected * 2 - 1)) << 1;
+        keys = new int[capacity];
+        values = new double[capacity];
+        mask = capacity - 1;
+        Arrays.fill(keys, EMPTY);
+    }
+
+    /**
+     * Adds delta to the value of key, inserting it with value delta if absent.
+     * @param key non negative key
+     * @param delta amount added
+     * @return true if the key was inserted
+     */
+    public boolean add(int key, double delta) {
+        int slot = slot(key);
+        if (keys[slot] == key) {
+            values[slot] += delta;
+            return false;
+        }
+        keys[slot] = key;
+        values[slot] = delta;
+        if (++size * 2 > keys.length) {
+            grow();
+        }
+        return true;
+    }
+
+    /**
+     * @param key non negative key
+     * @return value of the key, 0 if absent
+     */
+    public double get(int key) {
+        int slot = slot(key);
+        return (keys[slot] == key) ? values[slot] : 0;
+    }
+
+    public boolean containsKey(int key) {
+        return keys[slot(key)] == key;
+    }
+
+    /**
+     * @param key non negative key
+     * @return value the key had, 0 if it was absent
+     */
+    public double remove(int key) {
+        int slot = slot(key);
+        if (keys[slot] != key) {
+            return 0;
+        }
+        double value = values[slot];
+        size--;
+        // Move back every following entry whose home slot is not after the hole
+        int hole = slot;
+        for (int i = (hole + 1) & mask; keys[i] != EMPTY; i = (i + 1) & mask) {
+            int home = hash(keys[i]) & mask;
+            if (((i - home) & mask) >= ((i - hole) & mask)) {
+                keys[hole] = keys[i];
+                values[hole] = values[i];
+                hole = i;
+            }
+        }
+        keys[hole] = EMPTY;
+        return value;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int capacity() {
+        return keys.length;
+    }
+
+    /**
+     * @param slot slot in [0, capacity())
+     * @return key stored in the slot, -1 if it is empty
+     */
+    public int keyAt(int slot) {
+        return keys[slot];
+    }
+
+    public double valueAt(int slot) {
+        return values[slot];
+    }
+
+    /**
+     * Removes every entry, keeping the capacity.
+     */
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+    }
+
+    /*
+     * Slot holding the key, or the empty slot where it would go
+     */
+    private int slot(int key) {
+        int i = hash(key) & mask;
+        while (keys[i] != EMPTY && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        double[] oldValues = values;
+        keys = new int[oldKeys.length * 2];
+        values = new double[oldKeys.length * 2];
+        mask = keys.length - 1;
+        Arrays.fill(keys, EMPTY);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = slot(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package src.com.karger.utils;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing hash map from non negative long keys to int values, with
+ * linear probing and no boxing, the long counterpart of {@link IntDoubleHashMap}.
+ */
+public class LongIntHashMap {
+
+    private static final long EMPTY = -1;
+
+    private long[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+
+    /**
+     * @param expected number of entries to hold before growing
+     */
+    public LongIntHashMap(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(4, expected * 2 - 1)) << 1;
+        keys = new long[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+        Arrays.fill(keys, EMPTY);
+    }
+
+    /**
+     * @param key non negative key
+     * @param value value to store
+     */
+    public void put(long key, int value) {
+        int slot = slot(key);
+        values[slot] = value;
+        if (keys[slot] == key) {
+            return;
+        }
+        keys[slot] = key;
+        if (++size * 2 > keys.length) {
+            grow();
+        }
+    }
+
+    /**
+     * @param key non negative key
+     * @return value of the key, -1 if absent
+     */
+    public int get(long key) {
+        int slot = slot(key);
+        return (keys[slot] == key) ? values[slot] : -1;
+    }
+
+    /**
+     * @param key non negative key
+     * @return value the key had, -1 if it was absent
+     */
+    public int remove(long key) {
+        int slot = slot(key);
+        if (keys[slot] != key) {
+            return -1;
+        }
+        int value = values[slot];
+        size--;
+        // Move back every following entry whose home slot is not after the hole
+        int hole = slot;
+        for (int i = (hole + 1) & mask; keys[i] != EMPTY; i = (i + 1) & mask) {
+            int home = hash(keys[i]) & mask;
+            if (((i - home) & mask) >= ((i - hole) & mask)) {
+                keys[hole] = keys[i];
+                values[hole] = values[i];
+                hole = i;
+            }
+        }
+        keys[hole] = EMPTY;
+        return value;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private int slot(long key) {
+        int i = hash(key) & mask;
+        while (keys[i] != EMPTY && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new int[oldKeys.length * 2];
+        mask = keys.length - 1;
+        Arrays.fill(keys, EMPTY);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = slot(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+}
@@ -1,10 +1,6 @@
 package src.com.karger.utils;
 
-import src.com.karger.karger.Edge;
-
-import java.util.HashSet;
 import java.util.Objects;
-import java.util.Set;
 
 public class Product {
 	
@@ -12,43 +8,16 @@ public class Product {
 	private final int unit;
 	private final double price;
 
-	private final Set<Edge> edges;
-
 	/*
-	 * This class represent a vertex of the graph like a product
+	 * This class represent the metadata of a vertex of the graph like a product,
+	 * see ProductCatalog. Graph algorithms only use the product id
 	 */
     public Product(String name, int unit, double price){
 		this.name = name;
 		this.unit = unit;
 		this.price = price;
-		edges = new HashSet<>();
 	}
 
-	public void addEdge(Edge edge) {
-        for (int i = 0; i < edges.size(); i++) {
-            if (getEdge(i).equals(edge)) {
-                return;
-            }
-        }
-        edges.add(edge);
-    }
-
-    public void remove(Edge edge) {
-        for (int i = 0; i < edges.size(); i++) {
-            if (getEdge(i).equals(edge)) {
-                edges.remove(edge);
-            }
-        }
-    }
-
-	/*
-	 * Return edges that connects this product to others
-	 */
-    public Set<Edge> getEdges() { return edges; }
-
-    public Edge getEdge(int i) {
-        return (Edge) edges.toArray()[i];
-    }
 	public String getName(){
 		return this.name ;
 	}
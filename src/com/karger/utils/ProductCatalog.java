@@ -0,0 +1,83 @@
+package src.com.karger.utils;
+
+import java.util.Arrays;
+
+/**
+ * Metadata of the products of a graph, one column per field indexed by the
+ * dense product id. The algorithms only ever see the ids, the catalog is
+ * read when a result is rendered.
+ */
+public class ProductCatalog {
+
+    private String[] names;
+    private int[] units;
+    private double[] prices;
+    private int size;
+
+    /**
+     * @param expected number of products to hold before growing
+     */
+    public ProductCatalog(int expected) {
+        int capacity = Math.max(1, expected);
+        names = new String[capacity];
+        units = new int[capacity];
+        prices = new double[capacity];
+    }
+
+    /**
+     * @param name product name
+     * @param unit units per purchase
+     * @param price unit price
+     * @return id of the new product, the number of products added before it
+     */
+    public int add(String name, int unit, double price) {
+        if (size == names.length) {
+            int capacity = names.length * 2;
+            names = Arrays.copyOf(names, capacity);
+            units = Arrays.copyOf(units, capacity);
+            prices = Arrays.copyOf(prices, capacity);
+        }
+        names[size] = name;
+        units[size] = unit;
+        prices[size] = price;
+        return size++;
+    }
+
+    public String getName(int id) {
+        return names[id];
+    }
+
+    public int getUnit(int id) {
+        return units[id];
+    }
+
+    public double getPrice(int id) {
+        return prices[id];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param id product id
+     * @return product built from the columns, null if there is no such id
+     */
+    public Product get(int id) {
+        if (id < 0 || id >= size) {
+            return null;
+        }
+        return new Product(names[id], units[id], prices[id]);
+    }
+
+    /**
+     * @return copy holding the same products under the same ids
+     */
+    public ProductCatalog copy() {
+        ProductCatalog copy = new ProductCatalog(size);
+        for (int i = 0; i < size; i++) {
+            copy.add(names[i], units[i], prices[i]);
+        }
+        return copy;
+    }
+}
@@ -1,17 +1,23 @@
 package src.com.karger.utils;
 
-import java.util.Random;
+import java.util.SplittableRandom;
 
 public class RandomGenerator {
 
-    private static Random rnd;
     private static final char[] chars = "abcdefghijklmnopqrstuvwxyz".toCharArray();
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private final SplittableRandom rnd;
 
     public RandomGenerator() {
-        rnd = new Random();
+        rnd = new SplittableRandom();
+    }
+
+    public RandomGenerator(long seed) {
+        rnd = new SplittableRandom(seed);
     }
 
-    public Random getRnd() {
+    public SplittableRandom getRnd() {
         return rnd;
     }
 
@@ -25,4 +31,41 @@ public class RandomGenerator {
         }
         return sb.toString();
     }
+
+    /**
+     * Random stream number index of a master seed. The same seed and index
+     * always give the same stream, whichever thread asks for it and in whatever
+     * order, so any single trial of a parallel run can be replayed on its own.
+     * @param seed master seed of the run
+     * @param index number of the stream, usually the trial number
+     * @return independent random stream
+     */
+    public static SplittableRandom stream(long seed, long index) {
+        return new SplittableRandom(streamSeed(seed, index));
+    }
+
+    /**
+     * Seed of the stream number index of a master seed, so a reused
+     * {@link StreamRandom} can be moved onto that stream without allocating.
+     * @param seed master seed of the run
+     * @param index number of the stream
+     * @return seed that starts the same sequence as {@link #stream}(seed, index)
+     */
+    public static long streamSeed(long seed, long index) {
+        // Seeds are scrambled first, consecutive raw seeds would give shifted copies of one sequence
+        return mix64(seed + (index + 1) * GOLDEN_GAMMA);
+    }
+
+    /**
+     * @return a fresh master seed for runs that were not given one
+     */
+    public static long newSeed() {
+        return new SplittableRandom().nextLong();
+    }
+
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return z ^ (z >>> 33);
+    }
 }
@@ -0,0 +1,54 @@
+package src.com.karger.utils;
+
+/**
+ * SplitMix64 generator whose state can be moved to any seed without
+ * allocating. It draws exactly the same numbers as a SplittableRandom built
+ * with that seed, so trial streams keep their values while a single instance
+ * is reused for every trial a thread runs.
+ */
+public class StreamRandom implements java.util.random.RandomGenerator {
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private long seed;
+
+    public StreamRandom() {
+        this(0);
+    }
+
+    public StreamRandom(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Restarts the generator as if it had just been built with the given seed.
+     * @param seed new seed
+     * @return this generator
+     */
+    public StreamRandom setSeed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    @Override
+    public long nextLong() {
+        return mix64(seed += GOLDEN_GAMMA);
+    }
+
+    @Override
+    public int nextInt() {
+        return mix32(seed += GOLDEN_GAMMA);
+    }
+
+    // Same finalizers as SplittableRandom
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    private static int mix32(long z) {
+        z = (z ^ (z >>> 33)) * 0x62a9d9ed799705f5L;
+        return (int) (((z ^ (z >>> 28)) * 0xcb24d0a5c88c35b3L) >>> 32);
+    }
+}
@@ -0,0 +1,101 @@
+package src.com.karger.utils;
+
+/**
+ * Disjoint set forest over dense integer ids, used to track which original
+ * vertices have been merged into the same super vertex during a contraction.
+ */
+public class UnionFind {
+
+    private final int[] parent;
+    private final int[] size;
+    // Elements in use, at most the capacity of the arrays
+    private int n;
+    private int components;
+
+    /**
+     * Creates a forest where every id in [0, n) is its own component.
+     * @param n number of elements
+     */
+    public UnionFind(int n) {
+        parent = new int[n];
+        size = new int[n];
+        reset(n);
+    }
+
+    /**
+     * Puts every element back into its own component, without allocating.
+     */
+    public void reset() {
+        reset(n);
+    }
+
+    /**
+     * Puts every id in [0, n) back into its own component, so one forest can be
+     * reused for any number of elements up to its capacity without allocating.
+     * @param n number of elements, at most {@link #capacity()}
+     */
+    public void reset(int n) {
+        if (n > parent.length) {
+            throw new IllegalArgumentException("Union-find of capacity " + parent.length + " cannot hold " + n + " elements");
+        }
+        for (int i = 0; i < n; i++) {
+            parent[i] = i;
+            size[i] = 1;
+        }
+        this.n = n;
+        components = n;
+    }
+
+    /**
+     * Returns the representative of the component containing x.
+     * Uses path halving so the forest flattens while it is being read.
+     * @param x element
+     * @return root of the component
+     */
+    public int find(int x) {
+        while (parent[x] != x) {
+            parent[x] = parent[parent[x]];
+            x = parent[x];
+        }
+        return x;
+    }
+
+    /**
+     * Joins the components of a and b, smaller under larger.
+     * @param a first element
+     * @param b second element
+     * @return false if both elements already were in the same component
+     */
+    public boolean union(int a, int b) {
+        int ra = find(a);
+        int rb = find(b);
+        if (ra == rb) {
+            return false;
+        }
+        if (size[ra] < size[rb]) {
+            int tmp = ra;
+            ra = rb;
+            rb = tmp;
+        }
+        parent[rb] = ra;
+        size[ra] += size[rb];
+        components--;
+        return true;
+    }
+
+    public boolean connected(int a, int b) {
+        return find(a) == find(b);
+    }
+
+    public int getComponents() {
+        return components;
+    }
+
+    public int size() {
+        return n;
+    }
+
+    public int capacity() {
+        return parent.length;
+    }
+}